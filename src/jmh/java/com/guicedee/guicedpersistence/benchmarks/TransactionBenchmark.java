@@ -0,0 +1,246 @@
+package com.guicedee.guicedpersistence.benchmarks;
+
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedinjection.db.TestEntityManager;
+import com.guicedee.guicedpersistence.db.annotations.Transactional;
+import com.guicedee.guicedpersistence.injectors.CustomJpaLocalTxnInterceptor;
+import com.guicedee.guicedpersistence.injectors.CustomJpaPersistService;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.guicedpersistence.services.TransactionMetricsPublisher;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the transactional paths against the in memory guiceinjectionh2test unit
+ * <p>
+ * Run with the benchmarks profile, which adds the gc profiler for the allocation rate
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark
+{
+	private EntityManagerFactory factory;
+	private CustomJpaPersistService persistService;
+	private OuterBean outerBean;
+	private InnerBean innerBean;
+	private CustomJpaLocalTxnInterceptor localInterceptor;
+	private MethodInvocation localInvocation;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ReflectiveOperationException
+	{
+		GuiceContext.inject();
+		factory = GuiceContext.get(Key.get(EntityManagerFactory.class, TestEntityManager.class));
+		persistService = GuiceContext.get(Key.get(CustomJpaPersistService.class, TestEntityManager.class));
+		outerBean = GuiceContext.get(OuterBean.class);
+		innerBean = GuiceContext.get(InnerBean.class);
+
+		localInterceptor = new CustomJpaLocalTxnInterceptor(GuiceContext.get(TransactionHandlerDispatchTable.class),
+		                                                    GuiceContext.get(TransactionMetricsPublisher.class));
+		Field emProvider = CustomJpaLocalTxnInterceptor.class.getDeclaredField("emProvider");
+		emProvider.setAccessible(true);
+		emProvider.set(localInterceptor, persistService);
+		LocalBean localBean = new LocalBean(persistService);
+		localInvocation = new BenchmarkInvocation(localBean, LocalBean.class.getMethod("work"));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		GuiceContext.destroy();
+	}
+
+	/**
+	 * A resource local transaction on an entity manager from the factory, without Guice
+	 */
+	@Benchmark
+	public boolean rawEntityManagerTransaction()
+	{
+		EntityManager em = factory.createEntityManager();
+		try
+		{
+			em.getTransaction()
+			  .begin();
+			boolean open = em.isOpen();
+			em.getTransaction()
+			  .commit();
+			return open;
+		}
+		finally
+		{
+			em.close();
+		}
+	}
+
+	/**
+	 * A method intercepted by GuicedPersistenceTxnInterceptor
+	 */
+	@Benchmark
+	public boolean guicedPersistenceInterceptor()
+	{
+		return innerBean.work();
+	}
+
+	/**
+	 * A method run through CustomJpaLocalTxnInterceptor
+	 */
+	@Benchmark
+	public Object customJpaLocalInterceptor() throws Throwable
+	{
+		return localInterceptor.invoke(localInvocation);
+	}
+
+	/**
+	 * A transactional method calling another transactional method that joins its transaction
+	 */
+	@Benchmark
+	public boolean nestedTransactional()
+	{
+		return outerBean.work();
+	}
+
+	/**
+	 * CustomJpaPersistService.get() inside a running unit of work
+	 */
+	@Benchmark
+	@OperationsPerInvocation(1000)
+	public int persistServiceGet(WorkState work)
+	{
+		int hash = 0;
+		for (int i = 0; i < 1000; i++)
+		{
+			hash ^= System.identityHashCode(work.persistService.get());
+		}
+		return hash;
+	}
+
+	/**
+	 * Keeps a unit of work open on each benchmark thread
+	 */
+	@State(Scope.Thread)
+	public static class WorkState
+	{
+		private CustomJpaPersistService persistService;
+
+		@Setup(Level.Iteration)
+		public void begin(TransactionBenchmark benchmark)
+		{
+			persistService = benchmark.persistService;
+			persistService.begin();
+		}
+
+		@TearDown(Level.Iteration)
+		public void end()
+		{
+			persistService.end();
+		}
+	}
+
+	public static class InnerBean
+	{
+		@Inject
+		@TestEntityManager
+		private EntityManager entityManager;
+
+		@Transactional(entityManagerAnnotation = TestEntityManager.class)
+		public boolean work()
+		{
+			return entityManager.isOpen();
+		}
+	}
+
+	public static class OuterBean
+	{
+		@Inject
+		private InnerBean innerBean;
+
+		@Transactional(entityManagerAnnotation = TestEntityManager.class)
+		public boolean work()
+		{
+			return innerBean.work();
+		}
+	}
+
+	/**
+	 * The target of the CustomJpaLocalTxnInterceptor case, created without Guice so the interceptor is only run by the benchmark
+	 */
+	public static class LocalBean
+	{
+		private final CustomJpaPersistService persistService;
+
+		public LocalBean(CustomJpaPersistService persistService)
+		{
+			this.persistService = persistService;
+		}
+
+		@com.google.inject.persist.Transactional
+		public boolean work()
+		{
+			return persistService.get()
+			                     .isOpen();
+		}
+	}
+
+	/**
+	 * Calls the target method directly when the interceptor proceeds
+	 */
+	private static final class BenchmarkInvocation
+			implements MethodInvocation
+	{
+		private static final Object[] NO_ARGUMENTS = new Object[0];
+		private final Object target;
+		private final Method method;
+
+		private BenchmarkInvocation(Object target, Method method)
+		{
+			this.target = target;
+			this.method = method;
+		}
+
+		@Override
+		public Method getMethod()
+		{
+			return method;
+		}
+
+		@Override
+		public Object[] getArguments()
+		{
+			return NO_ARGUMENTS;
+		}
+
+		@Override
+		public Object proceed() throws Throwable
+		{
+			return method.invoke(target);
+		}
+
+		@Override
+		public Object getThis()
+		{
+			return target;
+		}
+
+		@Override
+		public AccessibleObject getStaticPart()
+		{
+			return method;
+		}
+	}
+}
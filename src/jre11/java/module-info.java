@@ -25,6 +25,8 @@ module com.guicedee.guicedpersistence {
 	exports com.guicedee.guicedpersistence.jpa.implementations;
 	exports com.guicedee.guicedpersistence.jpa;
 	exports com.guicedee.guicedpersistence.scanners;
+	exports com.guicedee.guicedpersistence.injectors;
+	exports com.guicedee.guicedpersistence.metrics;
 
 	exports com.guicedee.guicedpersistence.implementations;
 
@@ -41,19 +43,24 @@ module com.guicedee.guicedpersistence {
 	requires transitive java.sql;
 
 	requires org.json;
+	requires static java.compiler;
 
 	uses com.guicedee.guicedpersistence.services.IPropertiesConnectionInfoReader;
 	uses com.guicedee.guicedpersistence.services.IPropertiesEntityManagerReader;
 	uses com.guicedee.guicedpersistence.services.ITransactionHandler;
+	uses com.guicedee.guicedpersistence.services.ITransactionMetricsListener;
 
 	provides com.guicedee.guicedinjection.interfaces.IGuicePostStartup with com.guicedee.guicedpersistence.implementations.EntityManagerPostStartup;
 	provides IGuiceModule with PersistenceServicesModule, PersistenceServiceLoadersBinder;
 
 	provides ITransactionHandler with BTMAutomatedTransactionHandler, JPAAutomatedTransactionHandler;
+	provides com.guicedee.guicedpersistence.services.ITransactionMetricsListener with com.guicedee.guicedpersistence.metrics.PrometheusTransactionMetricsListener;
 	provides IPropertiesEntityManagerReader with BTMConnectionProperties,
 			                                        HibernateEntityManagerProperties,
 			                                        SystemEnvironmentVariablesPropertiesReader;
 
+	provides javax.annotation.processing.Processor with com.guicedee.guicedpersistence.implementations.EntityIndexProcessor;
+
 	provides com.guicedee.guicedinjection.interfaces.IGuicePreDestroy with com.guicedee.guicedpersistence.implementations.GuicedPersistenceDestroyer, BTMDestroyer;
 
 	provides com.guicedee.guicedpersistence.services.IPropertiesConnectionInfoReader with JPADefaultConnectionBaseBuilder,
@@ -40,6 +40,19 @@ public class BTMConnectionBaseInfo
 	 */
 	@Override
 	public DataSource toPooledDatasource()
+	{
+		DataSource pds = createPooledDatasource();
+		initialiseDatasource(pds);
+		return pds;
+	}
+
+	/**
+	 * Returns the BTM Pooling Data Source Configured without calling init, no connections are opened
+	 *
+	 * @return The datasource
+	 */
+	@Override
+	public DataSource createPooledDatasource()
 	{
 		PoolingDataSource pds = new PoolingDataSource();
 		if (!isXa())
@@ -131,16 +144,25 @@ public class BTMConnectionBaseInfo
 		{
 			processNonXa(this, pds);
 		}
-		
+		return pds;
+	}
+
+	/**
+	 * Initialises the pool, opening the minimum pool size of connections and registering the unique name for JNDI lookups
+	 *
+	 * @param dataSource
+	 * 		The pooling data source
+	 */
+	@Override
+	public void initialiseDatasource(DataSource dataSource)
+	{
 		try
 		{
-			pds.init();
+			((PoolingDataSource) dataSource).init();
 		}catch (IllegalStateException ise)
 		{
 			//expected for duplicates
 		}
-
-		return pds;
 	}
 
 	/**
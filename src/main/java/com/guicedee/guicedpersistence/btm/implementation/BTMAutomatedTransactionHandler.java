@@ -1,9 +1,11 @@
 package com.guicedee.guicedpersistence.btm.implementation;
 
+import bitronix.tm.BitronixTransaction;
 import bitronix.tm.BitronixTransactionManager;
 import bitronix.tm.jndi.BitronixContext;
 import com.google.common.base.Strings;
 import com.guicedee.guicedpersistence.services.ITransactionHandler;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
 import com.guicedee.logger.LogFactory;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 
@@ -27,6 +29,10 @@ public class BTMAutomatedTransactionHandler
     private static final BitronixContext bc = new BitronixContext();
 
     private static final String UserTransactionReference = "java:comp/UserTransaction";
+    /**
+     * The timeout applied when the method did not set one
+     */
+    private static final int DefaultTimeout = 30;
 
     /**
      * Field active
@@ -55,7 +61,10 @@ public class BTMAutomatedTransactionHandler
     }
 
     public static void setActive(boolean active) {
-        BTMAutomatedTransactionHandler.active = active;
+        if (BTMAutomatedTransactionHandler.active != active) {
+            BTMAutomatedTransactionHandler.active = active;
+            TransactionHandlerDispatchTable.invalidate();
+        }
     }
 
     /**
@@ -95,7 +104,7 @@ public class BTMAutomatedTransactionHandler
     public void setTransactionTimeout(int timeout, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
         try {
             BitronixTransactionManager userTransaction = (BitronixTransactionManager) bc.lookup(UserTransactionReference);
-            userTransaction.setTransactionTimeout(timeout);
+            userTransaction.setTransactionTimeout(timeout < 0 ? DefaultTimeout : timeout);
         } catch (Exception e) {
             BTMAutomatedTransactionHandler.log.log(Level.WARNING, "Unable to automatically start the transaction", e);
         }
@@ -128,6 +137,27 @@ public class BTMAutomatedTransactionHandler
         }
     }
 
+    @Override
+    public Object suspendTransaction(EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        try {
+            BitronixTransactionManager userTransaction = (BitronixTransactionManager) bc.lookup(UserTransactionReference);
+            return userTransaction.suspend();
+        } catch (Exception e) {
+            BTMAutomatedTransactionHandler.log.log(Level.WARNING, "Unable to suspend the transaction", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void resumeTransaction(Object suspended, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        try {
+            BitronixTransactionManager userTransaction = (BitronixTransactionManager) bc.lookup(UserTransactionReference);
+            userTransaction.resume((BitronixTransaction) suspended);
+        } catch (Exception e) {
+            BTMAutomatedTransactionHandler.log.log(Level.WARNING, "Unable to resume the suspended transaction", e);
+        }
+    }
+
     @Override
     public boolean active(ParsedPersistenceXmlDescriptor persistenceUnit) {
         return enabled(persistenceUnit) && active;
@@ -138,6 +168,9 @@ public class BTMAutomatedTransactionHandler
     }
 
     public static void setEnabled(boolean enabled) {
-        BTMAutomatedTransactionHandler.enabled = enabled;
+        if (BTMAutomatedTransactionHandler.enabled != enabled) {
+            BTMAutomatedTransactionHandler.enabled = enabled;
+            TransactionHandlerDispatchTable.invalidate();
+        }
     }
 }
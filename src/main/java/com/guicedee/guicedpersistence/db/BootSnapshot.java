@@ -0,0 +1,558 @@
+package com.guicedee.guicedpersistence.db;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.guicedee.guicedpersistence.implementations.PersistenceFileHandler;
+import com.guicedee.guicedpersistence.readers.systemproperties.SystemEnvironmentVariablesPropertiesReader;
+import com.guicedee.logger.LogFactory;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+
+import jakarta.persistence.spi.PersistenceUnitTransactionType;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An optional local cache of the persistence units and their resolved properties, so a restart with the same classpath and
+ * environment skips the persistence file lookup of the database modules and running the entity manager property readers. Hibernate
+ * still reads persistence.xml when the entity manager factory is created.
+ * <p>
+ * Enabled with {@link #setLocation(Path)} or the system property {@value #LOCATION_PROPERTY}. The snapshot is keyed by a hash of
+ * the classpath entries and persistence files, and per unit by a hash of the system properties and environment variables its
+ * placeholders reference, other than those named like a secret. Readers that take values from anywhere else must not be used with
+ * a snapshot.
+ * <p>
+ * Placeholders are never resolved on disk. Every property whose value holds a placeholder is stored as its template and resolved
+ * again on load. Units with a password, secret, credential or token property that is not a placeholder are never cached.
+ */
+public final class BootSnapshot
+{
+	/**
+	 * The system property with the location of the snapshot file
+	 */
+	public static final String LOCATION_PROPERTY = "guicedpersistence.bootsnapshot";
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LogFactory.getLog("BootSnapshot");
+	/**
+	 * The snapshot format, files of another version are ignored
+	 */
+	private static final int VERSION = 2;
+	/**
+	 * Placeholders in property values, optionally with a default
+	 */
+	private static final Pattern placeholder = Pattern.compile("\\$\\{([^}:]*)(:[^}]*)?}");
+	/**
+	 * Reads and writes the snapshot
+	 */
+	private static final ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * The units recorded in this boot
+	 */
+	private static final Map<String, ObjectNode> recordedUnits = new LinkedHashMap<>();
+	/**
+	 * The snapshot file, disabled if null
+	 */
+	private static Path location = System.getProperty(LOCATION_PROPERTY) == null ? null : Paths.get(System.getProperty(LOCATION_PROPERTY));
+	/**
+	 * The units read from a snapshot that matches the classpath, null until read
+	 */
+	private static Map<String, ObjectNode> loadedUnits;
+	/**
+	 * The hash of the classpath entries and persistence files of this boot
+	 */
+	private static String resourceDigest;
+
+	private BootSnapshot()
+	{
+		//No config required
+	}
+
+	/**
+	 * The snapshot file
+	 *
+	 * @return The location or null if no snapshot is used
+	 */
+	public static synchronized Path getLocation()
+	{
+		return location;
+	}
+
+	/**
+	 * Sets the snapshot file, must be set before the database modules are configured
+	 *
+	 * @param location
+	 * 		The location or null to not use a snapshot
+	 */
+	public static synchronized void setLocation(Path location)
+	{
+		BootSnapshot.location = location;
+		loadedUnits = null;
+		recordedUnits.clear();
+	}
+
+	/**
+	 * If a snapshot file is configured
+	 *
+	 * @return If the snapshot is used
+	 */
+	public static synchronized boolean isEnabled()
+	{
+		return location != null;
+	}
+
+	/**
+	 * Returns the cached unit with the given name if the snapshot still matches the classpath and environment
+	 *
+	 * @param unitName
+	 * 		The persistence unit name
+	 *
+	 * @return The cached unit, or null if the unit must be configured normally
+	 */
+	public static synchronized CachedUnit find(String unitName)
+	{
+		if (location == null)
+		{
+			return null;
+		}
+		ObjectNode unit = getLoadedUnits().get(unitName);
+		if (unit == null)
+		{
+			return null;
+		}
+		try
+		{
+			if (!unit.path("digest")
+			         .asText()
+			         .equals(placeholderDigest(readStrings(unit.path("placeholders")))))
+			{
+				log.config("Boot snapshot of [" + unitName + "] is out of date");
+				return null;
+			}
+			ParsedPersistenceXmlDescriptor persistenceUnit = readUnit((ObjectNode) unit.get("unit"));
+			Properties properties = new Properties();
+			unit.path("properties")
+			    .fields()
+			    .forEachRemaining(entry -> properties.put(entry.getKey(), entry.getValue()
+			                                                                   .asText()));
+			for (String key : readStrings(unit.path("templates")))
+			{
+				properties.put(key, SystemEnvironmentVariablesPropertiesReader.resolve(properties.getProperty(key)));
+			}
+			recordedUnits.put(unitName, unit);
+			log.config("Loaded [" + unitName + "] from the boot snapshot");
+			return new CachedUnit(persistenceUnit, properties);
+		}
+		catch (Exception e)
+		{
+			log.log(Level.WARNING, "Unable to read [" + unitName + "] from the boot snapshot", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Records a unit configured in this boot, units that hold a literal secret are not recorded
+	 *
+	 * @param persistenceUnit
+	 * 		The parsed persistence unit
+	 * @param resolvedProperties
+	 * 		The properties after every entity manager reader has run
+	 */
+	public static synchronized void record(ParsedPersistenceXmlDescriptor persistenceUnit, Properties resolvedProperties)
+	{
+		if (location == null)
+		{
+			return;
+		}
+		Properties raw = persistenceUnit.getProperties();
+		Set<String> placeholders = new TreeSet<>();
+		for (String key : raw.stringPropertyNames())
+		{
+			String value = raw.getProperty(key);
+			Set<String> names = new TreeSet<>();
+			if (!collectPlaceholders(value, names) && isSecret(key))
+			{
+				log.config("[" + persistenceUnit.getName() + "] holds a literal secret in " + key + ", it will not be cached");
+				return;
+			}
+			if (!isSecret(key))
+			{
+				placeholders.addAll(names);
+			}
+		}
+		placeholders.removeIf(BootSnapshot::isSecret);
+
+		ObjectNode properties = mapper.createObjectNode();
+		List<String> templates = new ArrayList<>();
+		for (String key : new TreeSet<>(resolvedProperties.stringPropertyNames()))
+		{
+			String value = resolvedProperties.getProperty(key);
+			String template = raw.getProperty(key);
+			if (template != null && collectPlaceholders(template, new TreeSet<>()))
+			{
+				if (!value.equals(SystemEnvironmentVariablesPropertiesReader.resolve(template)))
+				{
+					log.config("[" + persistenceUnit.getName() + "] resolves " + key + " outside of its template, it will not be cached");
+					return;
+				}
+				value = template;
+				templates.add(key);
+			}
+			else if (isSecret(key))
+			{
+				log.config("[" + persistenceUnit.getName() + "] resolves " + key + " outside of its template, it will not be cached");
+				return;
+			}
+			properties.put(key, value);
+		}
+
+		ObjectNode unit = mapper.createObjectNode();
+		unit.set("placeholders", writeStrings(placeholders));
+		unit.put("digest", placeholderDigest(placeholders));
+		unit.set("unit", writeUnit(persistenceUnit));
+		unit.set("properties", properties);
+		unit.set("templates", writeStrings(templates));
+		recordedUnits.put(persistenceUnit.getName(), unit);
+	}
+
+	/**
+	 * Writes the units of this boot to the snapshot file, if any were configured without it
+	 */
+	public static synchronized void save()
+	{
+		if (location == null || recordedUnits.isEmpty() || recordedUnits.equals(getLoadedUnits()))
+		{
+			return;
+		}
+		try
+		{
+			ObjectNode snapshot = mapper.createObjectNode();
+			snapshot.put("version", VERSION);
+			snapshot.put("resources", getResourceDigest());
+			ObjectNode units = snapshot.putObject("units");
+			recordedUnits.forEach(units::set);
+
+			Path parent = location.toAbsolutePath()
+			                      .getParent();
+			if (parent != null)
+			{
+				Files.createDirectories(parent);
+			}
+			Path temp = Files.createTempFile(parent, "bootsnapshot", ".tmp");
+			mapper.writeValue(temp.toFile(), snapshot);
+			Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			loadedUnits = new LinkedHashMap<>(recordedUnits);
+			log.config("Boot snapshot written to " + location);
+		}
+		catch (Exception e)
+		{
+			log.log(Level.WARNING, "Unable to write the boot snapshot to " + location, e);
+		}
+	}
+
+	private static Map<String, ObjectNode> getLoadedUnits()
+	{
+		if (loadedUnits == null)
+		{
+			loadedUnits = new LinkedHashMap<>();
+			if (Files.isRegularFile(location))
+			{
+				try
+				{
+					JsonNode snapshot = mapper.readTree(location.toFile());
+					if (snapshot.path("version")
+					            .asInt() == VERSION && getResourceDigest().equals(snapshot.path("resources")
+					                                                                      .asText()))
+					{
+						snapshot.path("units")
+						        .fields()
+						        .forEachRemaining(entry -> loadedUnits.put(entry.getKey(), (ObjectNode) entry.getValue()));
+					}
+					else
+					{
+						log.config("Boot snapshot " + location + " does not match the classpath, persistence units will be parsed");
+					}
+				}
+				catch (Exception e)
+				{
+					log.log(Level.WARNING, "Unable to read the boot snapshot " + location, e);
+				}
+			}
+		}
+		return loadedUnits;
+	}
+
+	/**
+	 * Hashes the classpath and module path entries, by name, size and modification time, and the contents of the persistence files
+	 * <p>
+	 * Exploded directories are hashed by the name, size and modification time of every file within them, as the directory itself
+	 * does not change when a file in it is rebuilt
+	 */
+	private static String getResourceDigest() throws IOException
+	{
+		if (resourceDigest == null)
+		{
+			MessageDigest digest = sha256();
+			for (String property : new String[]{"java.class.path", "jdk.module.path"})
+			{
+				String path = System.getProperty(property);
+				if (path == null)
+				{
+					continue;
+				}
+				for (String entry : path.split(File.pathSeparator))
+				{
+					File file = new File(entry);
+					if (file.isDirectory())
+					{
+						updateDirectory(digest, file.toPath());
+					}
+					else
+					{
+						update(digest, entry + ":" + file.length() + ":" + file.lastModified());
+					}
+				}
+			}
+			for (URL file : PersistenceFileHandler.getPersistenceFiles())
+			{
+				update(digest, file.toExternalForm());
+				try (InputStream in = file.openStream())
+				{
+					digest.update(in.readAllBytes());
+				}
+			}
+			resourceDigest = hex(digest.digest());
+		}
+		return resourceDigest;
+	}
+
+	private static void updateDirectory(MessageDigest digest, Path directory) throws IOException
+	{
+		update(digest, directory.toString());
+		List<Path> files = new ArrayList<>();
+		try (Stream<Path> walk = Files.walk(directory))
+		{
+			walk.filter(Files::isRegularFile)
+			    .forEach(files::add);
+		}
+		Collections.sort(files);
+		for (Path file : files)
+		{
+			update(digest, directory.relativize(file) + ":" + Files.size(file) + ":" + Files.getLastModifiedTime(file)
+			                                                                              .toMillis());
+		}
+	}
+
+	/**
+	 * Hashes the system property and environment variable of every placeholder name, the values themselves are never stored
+	 */
+	private static String placeholderDigest(Collection<String> names)
+	{
+		MessageDigest digest = sha256();
+		for (String name : names)
+		{
+			update(digest, name);
+			update(digest, System.getProperty(name));
+			update(digest, System.getenv(name));
+		}
+		return hex(digest.digest());
+	}
+
+	/**
+	 * Adds the placeholder names of a value
+	 *
+	 * @return If the value contained a placeholder
+	 */
+	private static boolean collectPlaceholders(String value, Set<String> names)
+	{
+		boolean found = false;
+		Matcher matcher = placeholder.matcher(value);
+		while (matcher.find())
+		{
+			names.add(matcher.group(1));
+			found = true;
+		}
+		return found;
+	}
+
+	private static boolean isSecret(String key)
+	{
+		String lower = key.toLowerCase(Locale.ROOT);
+		return lower.contains("pass") || lower.contains("secret") || lower.contains("credential") || lower.contains("token");
+	}
+
+	private static ObjectNode writeUnit(ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		ObjectNode node = mapper.createObjectNode();
+		node.put("name", persistenceUnit.getName());
+		node.put("root", persistenceUnit.getPersistenceUnitRootUrl() == null ? null : persistenceUnit.getPersistenceUnitRootUrl()
+		                                                                                             .toExternalForm());
+		node.put("provider", persistenceUnit.getProviderClassName());
+		node.put("transactionType", persistenceUnit.getTransactionType() == null ? null : persistenceUnit.getTransactionType()
+		                                                                                                 .name());
+		node.put("jtaDataSource", persistenceUnit.getJtaDataSource() == null ? null : persistenceUnit.getJtaDataSource()
+		                                                                                             .toString());
+		node.put("nonJtaDataSource", persistenceUnit.getNonJtaDataSource() == null ? null : persistenceUnit.getNonJtaDataSource()
+		                                                                                                   .toString());
+		node.put("useQuotedIdentifiers", persistenceUnit.isUseQuotedIdentifiers());
+		node.put("excludeUnlistedClasses", persistenceUnit.isExcludeUnlistedClasses());
+		node.put("validationMode", persistenceUnit.getValidationMode() == null ? null : persistenceUnit.getValidationMode()
+		                                                                                               .name());
+		node.put("sharedCacheMode", persistenceUnit.getSharedCacheMode() == null ? null : persistenceUnit.getSharedCacheMode()
+		                                                                                                 .name());
+		node.set("classes", writeStrings(persistenceUnit.getManagedClassNames()));
+		node.set("mappingFiles", writeStrings(persistenceUnit.getMappingFileNames()));
+		List<String> jars = new ArrayList<>();
+		for (URL jar : persistenceUnit.getJarFileUrls())
+		{
+			jars.add(jar.toExternalForm());
+		}
+		node.set("jarFiles", writeStrings(jars));
+		ObjectNode properties = node.putObject("properties");
+		Properties raw = persistenceUnit.getProperties();
+		for (String key : new TreeSet<>(raw.stringPropertyNames()))
+		{
+			properties.put(key, raw.getProperty(key));
+		}
+		return node;
+	}
+
+	private static ParsedPersistenceXmlDescriptor readUnit(ObjectNode node) throws IOException
+	{
+		ParsedPersistenceXmlDescriptor persistenceUnit = new ParsedPersistenceXmlDescriptor(node.hasNonNull("root") ? new URL(node.get("root")
+		                                                                                                                          .asText()) : null);
+		persistenceUnit.setName(node.path("name")
+		                            .asText());
+		persistenceUnit.setProviderClassName(textOrNull(node, "provider"));
+		if (node.hasNonNull("transactionType"))
+		{
+			persistenceUnit.setTransactionType(PersistenceUnitTransactionType.valueOf(node.get("transactionType")
+			                                                                              .asText()));
+		}
+		persistenceUnit.setJtaDataSource(textOrNull(node, "jtaDataSource"));
+		persistenceUnit.setNonJtaDataSource(textOrNull(node, "nonJtaDataSource"));
+		persistenceUnit.setUseQuotedIdentifiers(node.path("useQuotedIdentifiers")
+		                                            .asBoolean());
+		persistenceUnit.setExcludeUnlistedClasses(node.path("excludeUnlistedClasses")
+		                                              .asBoolean());
+		if (node.hasNonNull("validationMode"))
+		{
+			persistenceUnit.setValidationMode(node.get("validationMode")
+			                                      .asText());
+		}
+		if (node.hasNonNull("sharedCacheMode"))
+		{
+			persistenceUnit.setSharedCacheMode(node.get("sharedCacheMode")
+			                                       .asText());
+		}
+		persistenceUnit.addClasses(readStrings(node.path("classes")));
+		persistenceUnit.addMappingFiles(readStrings(node.path("mappingFiles")));
+		for (String jar : readStrings(node.path("jarFiles")))
+		{
+			persistenceUnit.addJarFileUrl(new URL(jar));
+		}
+		node.path("properties")
+		    .fields()
+		    .forEachRemaining(entry -> persistenceUnit.getProperties()
+		                                              .put(entry.getKey(), entry.getValue()
+		                                                                        .asText()));
+		return persistenceUnit;
+	}
+
+	private static String textOrNull(JsonNode node, String field)
+	{
+		return node.hasNonNull(field) ? node.get(field)
+		                                    .asText() : null;
+	}
+
+	private static ArrayNode writeStrings(Collection<String> values)
+	{
+		ArrayNode array = mapper.createArrayNode();
+		values.forEach(array::add);
+		return array;
+	}
+
+	private static List<String> readStrings(JsonNode array)
+	{
+		List<String> values = new ArrayList<>();
+		array.forEach(value -> values.add(value.asText()));
+		return values;
+	}
+
+	private static MessageDigest sha256()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value)
+	{
+		if (value == null)
+		{
+			digest.update((byte) 0);
+			return;
+		}
+		digest.update((byte) 1);
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static String hex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+		{
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+			  .append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * A persistence unit and its resolved properties read from the snapshot
+	 */
+	public static final class CachedUnit
+	{
+		private final ParsedPersistenceXmlDescriptor persistenceUnit;
+		private final Properties properties;
+
+		private CachedUnit(ParsedPersistenceXmlDescriptor persistenceUnit, Properties properties)
+		{
+			this.persistenceUnit = persistenceUnit;
+			this.properties = properties;
+		}
+
+		public ParsedPersistenceXmlDescriptor getPersistenceUnit()
+		{
+			return persistenceUnit;
+		}
+
+		public Properties getProperties()
+		{
+			return properties;
+		}
+	}
+}
@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.logging.Level;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.*;
@@ -34,6 +35,10 @@ import static com.fasterxml.jackson.annotation.JsonInclude.Include.*;
 public abstract class ConnectionBaseInfo
 		implements Cloneable
 {
+	/**
+	 * The connection info readers, loaded once per injector and cleared when it is destroyed
+	 */
+	private static volatile Set<IPropertiesConnectionInfoReader> connectionInfoReaders;
 	/**
 	 * The persistence unit name applied to this cbi
 	 */
@@ -94,15 +99,49 @@ public abstract class ConnectionBaseInfo
 
 	public ConnectionBaseInfo populateFromProperties(ParsedPersistenceXmlDescriptor unit, Properties filteredProperties)
 	{
-		for (IPropertiesConnectionInfoReader connectionInfoReader : GuiceContext.instance()
-																				.getLoader(IPropertiesConnectionInfoReader.class, true, ServiceLoader.load(
-				                                                                       IPropertiesConnectionInfoReader.class)))
+		for (IPropertiesConnectionInfoReader connectionInfoReader : getConnectionInfoReaders())
 		{
 			connectionInfoReader.populateConnectionBaseInfo(unit, filteredProperties, this);
 		}
 		return this;
 	}
 
+	/**
+	 * Clears the loaded connection info readers, so the next injector loads its own
+	 */
+	public static void resetConnectionInfoReaders()
+	{
+		synchronized (ConnectionBaseInfo.class)
+		{
+			connectionInfoReaders = null;
+		}
+	}
+
+	/**
+	 * Returns the connection info readers, loading them on first use
+	 *
+	 * @return The sorted set of readers
+	 */
+	@SuppressWarnings("unchecked")
+	private static Set<IPropertiesConnectionInfoReader> getConnectionInfoReaders()
+	{
+		Set<IPropertiesConnectionInfoReader> readers = connectionInfoReaders;
+		if (readers == null)
+		{
+			synchronized (ConnectionBaseInfo.class)
+			{
+				readers = connectionInfoReaders;
+				if (readers == null)
+				{
+					readers = GuiceContext.instance()
+					                      .getLoader(IPropertiesConnectionInfoReader.class, true, ServiceLoader.load(IPropertiesConnectionInfoReader.class));
+					connectionInfoReaders = readers;
+				}
+			}
+		}
+		return readers;
+	}
+
 	/**
 	 * Returns the BTM Pooling Data Source Configured
 	 *
@@ -110,6 +149,29 @@ public abstract class ConnectionBaseInfo
 	 */
 	public abstract DataSource toPooledDatasource();
 
+	/**
+	 * Builds the pooled datasource without opening any connections, so it can be bound before the pool is filled
+	 * <p>
+	 * Defaults to {@link #toPooledDatasource()} for implementations that cannot split construction from initialisation
+	 *
+	 * @return The datasource, or null if none is pooled
+	 */
+	public DataSource createPooledDatasource()
+	{
+		return toPooledDatasource();
+	}
+
+	/**
+	 * Fills the pool of a datasource returned from {@link #createPooledDatasource()}, run on a startup thread
+	 *
+	 * @param dataSource
+	 * 		The datasource to initialise
+	 */
+	public void initialiseDatasource(DataSource dataSource)
+	{
+		//Initialised on creation
+	}
+
 	/**
 	 * Gets the transaction isolation
 	 *
@@ -5,6 +5,8 @@ import com.google.inject.Key;
 import com.guicedee.guicedinjection.GuiceContext;
 import com.guicedee.guicedinjection.interfaces.IGuiceModule;
 import com.guicedee.guicedpersistence.implementations.PersistenceFileHandler;
+import com.guicedee.guicedpersistence.implementations.PersistenceStartupReport;
+import com.guicedee.guicedpersistence.implementations.PersistenceStartupReport.Phase;
 import com.guicedee.guicedpersistence.services.PersistenceServicesModule;
 import com.guicedee.guicedpersistence.services.IPropertiesEntityManagerReader;
 import com.guicedee.guicedpersistence.injectors.JpaPersistPrivateModule;
@@ -37,6 +39,11 @@ public abstract class DatabaseModule<J extends DatabaseModule<J>>
 	 */
 	private static final Set<Class<? extends Annotation>> boundAnnotations = new HashSet<>();
 
+	/**
+	 * The entity manager property readers, loaded once per injector and cleared when it is destroyed
+	 */
+	private static volatile Set<IPropertiesEntityManagerReader> entityManagerReaders;
+
 	/**
 	 * Constructor DatabaseModule creates a new DatabaseModule instance.
 	 */
@@ -55,6 +62,42 @@ public abstract class DatabaseModule<J extends DatabaseModule<J>>
 		return DatabaseModule.boundAnnotations;
 	}
 
+	/**
+	 * Clears the loaded entity manager property readers, so the next injector loads its own
+	 */
+	public static void resetEntityManagerReaders()
+	{
+		synchronized (DatabaseModule.class)
+		{
+			entityManagerReaders = null;
+		}
+	}
+
+	/**
+	 * Returns the entity manager property readers, loading them on first use
+	 *
+	 * @return The sorted set of readers
+	 */
+	@SuppressWarnings("unchecked")
+	private static Set<IPropertiesEntityManagerReader> getEntityManagerReaders()
+	{
+		Set<IPropertiesEntityManagerReader> readers = entityManagerReaders;
+		if (readers == null)
+		{
+			synchronized (DatabaseModule.class)
+			{
+				readers = entityManagerReaders;
+				if (readers == null)
+				{
+					readers = GuiceContext.instance()
+					                      .getLoader(IPropertiesEntityManagerReader.class, true, ServiceLoader.load(IPropertiesEntityManagerReader.class));
+					entityManagerReaders = readers;
+				}
+			}
+		}
+		return readers;
+	}
+
 	/**
 	 * Configures the module with the bindings
 	 */
@@ -63,32 +106,52 @@ public abstract class DatabaseModule<J extends DatabaseModule<J>>
 	protected void configure()
 	{
 		DatabaseModule.log.config("Loading Database Module - " + getClass().getName() + " - " + getPersistenceUnitName());
-		Properties jdbcProperties = getJDBCPropertiesMap();
-		ParsedPersistenceXmlDescriptor pu = getPersistenceUnit();
-		if (pu == null)
+		ParsedPersistenceXmlDescriptor pu;
+		Properties jdbcProperties;
+		long start = System.nanoTime();
+		BootSnapshot.CachedUnit cached = BootSnapshot.find(getPersistenceUnitName());
+		if (cached != null)
 		{
-			DatabaseModule.log
-					.severe("Unable to register persistence unit with name " + getPersistenceUnitName() + " - No persistence unit containing this name was found.");
-			return;
+			PersistenceStartupReport.record(getPersistenceUnitName(), Phase.DISCOVERY, System.nanoTime() - start);
+			pu = cached.getPersistenceUnit();
+			jdbcProperties = cached.getProperties();
 		}
-		for (IPropertiesEntityManagerReader entityManagerReader : GuiceContext.instance()
-		                                                                      .getLoader(IPropertiesEntityManagerReader.class, true,
-		                                                                                 ServiceLoader.load(IPropertiesEntityManagerReader.class)))
+		else
 		{
-			Map<String, String> output = entityManagerReader.processProperties(pu, jdbcProperties);
-			if (output != null && !output.isEmpty())
+			pu = getPersistenceUnit();
+			if (pu == null)
 			{
-				jdbcProperties.putAll(output);
+				DatabaseModule.log
+						.severe("Unable to register persistence unit with name " + getPersistenceUnitName() + " - No persistence unit containing this name was found.");
+				return;
 			}
+			start = System.nanoTime();
+			jdbcProperties = getJDBCPropertiesMap(pu);
+			for (IPropertiesEntityManagerReader entityManagerReader : getEntityManagerReaders())
+			{
+				Map<String, String> output = entityManagerReader.processProperties(pu, jdbcProperties);
+				if (output != null && !output.isEmpty())
+				{
+					jdbcProperties.putAll(output);
+				}
+			}
+			PersistenceStartupReport.record(getPersistenceUnitName(), Phase.PROPERTY_READERS, System.nanoTime() - start);
+			BootSnapshot.record(pu, jdbcProperties);
 		}
 		try
 		{
+			start = System.nanoTime();
 			ConnectionBaseInfo connectionBaseInfo = getConnectionBaseInfo(pu, jdbcProperties);
 			connectionBaseInfo.populateFromProperties(pu, jdbcProperties);
 			if (connectionBaseInfo.getJndiName() == null)
 			{
 				connectionBaseInfo.setJndiName(getJndiMapping());
 			}
+			if (connectionBaseInfo.getPersistenceUnitName() == null)
+			{
+				connectionBaseInfo.setPersistenceUnitName(getPersistenceUnitName());
+			}
+			PersistenceStartupReport.record(getPersistenceUnitName(), Phase.CONNECTION_INFO, System.nanoTime() - start);
 			log.fine(String.format("%s - Connection Base Info Final - %s",
 			                       getPersistenceUnitName(), connectionBaseInfo));
 			bind(Key.get(ParsedPersistenceXmlDescriptor.class, getBindingAnnotation())).toInstance(pu);
@@ -122,13 +185,10 @@ public abstract class DatabaseModule<J extends DatabaseModule<J>>
 	{
 		try
 		{
-			for (ParsedPersistenceXmlDescriptor pu : PersistenceFileHandler.getPersistenceUnits())
+			ParsedPersistenceXmlDescriptor pu = PersistenceFileHandler.getPersistenceUnit(getPersistenceUnitName());
+			if (pu != null)
 			{
-				if (pu.getName()
-				      .equals(getPersistenceUnitName()))
-				{
-					return pu;
-				}
+				return pu;
 			}
 		}
 		catch (Throwable T)
@@ -155,13 +215,15 @@ public abstract class DatabaseModule<J extends DatabaseModule<J>>
 	/**
 	 * A properties map of the properties from the file
 	 *
+	 * @param pu
+	 * 		The persistence unit
+	 *
 	 * @return A properties map of the given persistence units properties
 	 */
 	@NotNull
-	private Properties getJDBCPropertiesMap()
+	private Properties getJDBCPropertiesMap(ParsedPersistenceXmlDescriptor pu)
 	{
 		Properties jdbcProperties = new Properties();
-		ParsedPersistenceXmlDescriptor pu = getPersistenceUnit();
 		configurePersistenceUnitProperties(pu, jdbcProperties);
 		return jdbcProperties;
 	}
@@ -0,0 +1,35 @@
+package com.guicedee.guicedpersistence.db.annotations;
+
+/**
+ * How a {@link Transactional} method relates to a transaction that may already be running for its entity manager
+ */
+public enum Propagation
+{
+	/**
+	 * Joins the current transaction if one exists, otherwise starts a new one. The default.
+	 */
+	REQUIRED,
+	/**
+	 * Suspends the current unit of work and transaction if any, and always runs in a new entity manager and transaction
+	 */
+	REQUIRES_NEW,
+	/**
+	 * Joins the current transaction if one exists, otherwise runs without starting a transaction
+	 */
+	SUPPORTS,
+	/**
+	 * Suspends the current unit of work and transaction if any, and runs in a new entity manager without a transaction
+	 */
+	NOT_SUPPORTED,
+	/**
+	 * Joins the current transaction, throwing a TransactionRequiredException if none exists
+	 */
+	MANDATORY,
+	/**
+	 * Runs within a savepoint of the current transaction if one exists, otherwise starts a new one.
+	 * <p>
+	 * On a rollback to the savepoint, entities persisted or loaded inside the nested scope are detached and entities changed inside it
+	 * are refreshed from the database. Entities removed inside it stay detached.
+	 */
+	NESTED
+}
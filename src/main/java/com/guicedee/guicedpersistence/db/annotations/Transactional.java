@@ -20,13 +20,40 @@ public @interface Transactional
 	Class<? extends Annotation> entityManagerAnnotation();
 
 	/**
-	 * The timeout applied for this transaction
+	 * The timeout applied for this transaction, in seconds
 	 *
-	 * Great for debugging and applying a custom timeout
+	 * Great for debugging and applying a custom timeout. When left unset, RESOURCE_LOCAL transactions have no deadline and
+	 * JTA transactions keep the 30 second timeout
 	 *
-	 * @return Default of 30 seconds (30)
+	 * @return Default of -1, unset
 	 */
-	int timeout() default 30;
+	int timeout() default -1;
+
+	/**
+	 * How this method relates to a transaction that is already running for the entity manager
+	 *
+	 * @return Default of join or create (REQUIRED)
+	 */
+	Propagation propagation() default Propagation.REQUIRED;
+
+	/**
+	 * Marks the transaction as read only.
+	 *
+	 * Entities are loaded without snapshots, nothing is flushed and the connection is flagged read only where the handler supports it
+	 *
+	 * @return Default of read-write (false)
+	 */
+	boolean readOnly() default false;
+
+	/**
+	 * Batches the writes of the transaction.
+	 *
+	 * Sets the JDBC batch size of the session, and flushes and clears the persistence context after every batchSize persisted entities
+	 * so large imports do not grow it unbounded. Entities persisted before a clear are detached
+	 *
+	 * @return Default of no batching (0)
+	 */
+	int batchSize() default 0;
 
 	/**
 	 * A list of exceptions to rollback on, if thrown by the transactional method. These exceptions
@@ -42,4 +69,35 @@ public @interface Transactional
 	 * take precedence over rollbackOn, but with subtype granularity.
 	 */
 	Class<? extends Exception>[] ignore() default {};
+
+	/**
+	 * The number of times the whole unit of work is run again with a fresh entity manager after a retriable failure.
+	 *
+	 * Only applies when the method owns the unit of work and the transaction. A retriable failure always rolls the transaction
+	 * back, even when rollbackOn and ignore would commit it
+	 *
+	 * @return Default of no retries (0)
+	 */
+	int maxRetries() default 0;
+
+	/**
+	 * Additional exceptions that are retried.
+	 *
+	 * Deadlocks, serialization failures, optimistic lock and lock timeout failures are always retriable
+	 */
+	Class<? extends Exception>[] retryOn() default {};
+
+	/**
+	 * The base delay in milliseconds before a retry, doubled on every attempt with full jitter applied
+	 *
+	 * @return Default of 50 milliseconds
+	 */
+	long retryBackoff() default 50;
+
+	/**
+	 * The largest delay in milliseconds before a retry
+	 *
+	 * @return Default of 2000 milliseconds
+	 */
+	long retryBackoffMax() default 2000;
 }
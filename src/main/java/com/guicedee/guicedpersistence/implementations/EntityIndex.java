@@ -0,0 +1,270 @@
+package com.guicedee.guicedpersistence.implementations;
+
+import com.guicedee.logger.LogFactory;
+import org.hibernate.boot.archive.internal.ArchiveHelper;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the entity indexes written by {@link EntityIndexProcessor} and hands them to Hibernate in place of class scanning
+ * <p>
+ * An index covers the classes compiled into one resource root. Units that detect classes, and have an index in their root and in
+ * every jar-file they list, receive the indexed classes through {@link AvailableSettings#LOADED_CLASSES} with class detection
+ * turned off. The scanner is disabled as well, unless the unit detects hbm.xml files or one of its roots has a META-INF/orm.xml,
+ * which are only found by scanning. Units without a complete index are scanned as before.
+ */
+public final class EntityIndex
+{
+	/**
+	 * The location of the index within a resource root
+	 */
+	public static final String INDEX_LOCATION = "META-INF/guicedpersistence/entities.index";
+	/**
+	 * The default mapping file, which Hibernate only finds by scanning
+	 */
+	private static final String DEFAULT_MAPPING_FILE = "META-INF/orm.xml";
+	/**
+	 * The scanner that reads no archives
+	 */
+	private static final String DISABLED_SCANNER = "org.hibernate.boot.archive.scan.internal.DisabledScanner";
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LogFactory.getLog("EntityIndex");
+	/**
+	 * The indexed class names by resource root
+	 */
+	private static final Map<String, List<String>> indexes = new ConcurrentHashMap<>();
+	/**
+	 * The resource roots holding a default mapping file
+	 */
+	private static final Set<String> mappingFileRoots = ConcurrentHashMap.newKeySet();
+	/**
+	 * If indexes are used
+	 */
+	private static boolean enabled = true;
+	/**
+	 * If the indexes on the classpath have been read
+	 */
+	private static volatile boolean loaded;
+
+	private EntityIndex()
+	{
+		//No config required
+	}
+
+	/**
+	 * If indexes are used in place of class scanning
+	 *
+	 * @return If indexes are used
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Sets if indexes are used in place of class scanning
+	 *
+	 * @param enabled
+	 * 		If indexes are used
+	 */
+	public static void setEnabled(boolean enabled)
+	{
+		EntityIndex.enabled = enabled;
+	}
+
+	/**
+	 * Returns the indexed class names in the root and jar-files of a persistence unit
+	 *
+	 * @param persistenceUnit
+	 * 		The persistence unit
+	 *
+	 * @return The class names, or null if the root or one of the jar-files has no index
+	 */
+	public static List<String> find(ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		List<String> classNames = new ArrayList<>();
+		for (URL root : getRoots(persistenceUnit))
+		{
+			List<String> index = root == null ? null : getIndexes().get(root.toExternalForm());
+			if (index == null)
+			{
+				return null;
+			}
+			classNames.addAll(index);
+		}
+		return classNames;
+	}
+
+	private static List<URL> getRoots(ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		List<URL> roots = new ArrayList<>();
+		roots.add(persistenceUnit.getPersistenceUnitRootUrl());
+		roots.addAll(persistenceUnit.getJarFileUrls());
+		return roots;
+	}
+
+	/**
+	 * Replaces class detection of a unit with its index, if it detects classes and has an index
+	 *
+	 * @param persistenceUnit
+	 * 		The persistence unit
+	 * @param properties
+	 * 		The properties the entity manager factory is created with, updated with the indexed classes
+	 *
+	 * @return If the index is used
+	 */
+	public static boolean apply(ParsedPersistenceXmlDescriptor persistenceUnit, Map<Object, Object> properties)
+	{
+		if (!enabled || persistenceUnit == null || persistenceUnit.isExcludeUnlistedClasses())
+		{
+			return false;
+		}
+		Object detection = properties.get(AvailableSettings.SCANNER_DISCOVERY);
+		if (detection == null)
+		{
+			detection = persistenceUnit.getProperties()
+			                           .getProperty(AvailableSettings.SCANNER_DISCOVERY, "class,hbm");
+		}
+		List<String> detect = new ArrayList<>();
+		for (String entry : detection.toString()
+		                             .split(","))
+		{
+			if (!entry.trim()
+			          .isEmpty())
+			{
+				detect.add(entry.trim());
+			}
+		}
+		if (!detect.remove("class"))
+		{
+			return false;
+		}
+		List<String> classNames = find(persistenceUnit);
+		if (classNames == null)
+		{
+			return false;
+		}
+		ClassLoader loader = getClassLoader();
+		Set<String> listed = new HashSet<>(persistenceUnit.getManagedClassNames());
+		List<Class<?>> classes = new ArrayList<>();
+		for (String className : classNames)
+		{
+			if (listed.contains(className))
+			{
+				continue;
+			}
+			try
+			{
+				classes.add(Class.forName(className, false, loader));
+			}
+			catch (ClassNotFoundException | LinkageError e)
+			{
+				log.log(Level.WARNING, "Entity index of [" + persistenceUnit.getName() + "] lists " + className + " which cannot be loaded, scanning instead", e);
+				return false;
+			}
+		}
+		properties.put(AvailableSettings.LOADED_CLASSES, classes);
+		properties.put(AvailableSettings.SCANNER_DISCOVERY, String.join(",", detect));
+		boolean scan = detect.contains("hbm");
+		for (URL root : getRoots(persistenceUnit))
+		{
+			scan = scan || mappingFileRoots.contains(root.toExternalForm());
+		}
+		if (scan)
+		{
+			log.config("Using the entity index for [" + persistenceUnit.getName() + "] with " + classes.size() + " classes, mapping files are still scanned");
+		}
+		else
+		{
+			properties.put(AvailableSettings.SCANNER, DISABLED_SCANNER);
+			log.config("Using the entity index for [" + persistenceUnit.getName() + "] with " + classes.size() + " classes, scanning is disabled");
+		}
+		return true;
+	}
+
+	/**
+	 * Clears the read indexes so they are read again on next use
+	 */
+	public static synchronized void reset()
+	{
+		indexes.clear();
+		mappingFileRoots.clear();
+		loaded = false;
+	}
+
+	private static Map<String, List<String>> getIndexes()
+	{
+		if (!loaded)
+		{
+			synchronized (EntityIndex.class)
+			{
+				if (!loaded)
+				{
+					readIndexes();
+					loaded = true;
+				}
+			}
+		}
+		return indexes;
+	}
+
+	private static void readIndexes()
+	{
+		try
+		{
+			for (URL url : Collections.list(getClassLoader().getResources(INDEX_LOCATION)))
+			{
+				URL root = ArchiveHelper.getJarURLFromURLEntry(url, "/" + INDEX_LOCATION);
+				indexes.put(root.toExternalForm(), readIndex(url));
+			}
+			for (URL url : Collections.list(getClassLoader().getResources(DEFAULT_MAPPING_FILE)))
+			{
+				mappingFileRoots.add(ArchiveHelper.getJarURLFromURLEntry(url, "/" + DEFAULT_MAPPING_FILE)
+				                                  .toExternalForm());
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.log(Level.WARNING, "Unable to read the entity indexes, units will be scanned", e);
+			indexes.clear();
+			mappingFileRoots.clear();
+		}
+	}
+
+	private static List<String> readIndex(URL url) throws IOException
+	{
+		List<String> classNames = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				line = line.trim();
+				if (!line.isEmpty() && !line.startsWith("#"))
+				{
+					classNames.add(line);
+				}
+			}
+		}
+		return classNames;
+	}
+
+	private static ClassLoader getClassLoader()
+	{
+		ClassLoader loader = Thread.currentThread()
+		                           .getContextClassLoader();
+		return loader == null ? EntityIndex.class.getClassLoader() : loader;
+	}
+}
@@ -0,0 +1,152 @@
+package com.guicedee.guicedpersistence.implementations;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes the classes Hibernate would detect by scanning, entities, embeddables, mapped superclasses and converters, to
+ * {@value EntityIndex#INDEX_LOCATION} in the compiled output
+ * <p>
+ * Registered as an annotation processor so modules compiled with this library on the processor path are indexed. Entries from a
+ * previous incremental compile are kept while their class still exists and is still annotated.
+ */
+@SupportedAnnotationTypes({"jakarta.persistence.Entity",
+                           "jakarta.persistence.Embeddable",
+                           "jakarta.persistence.MappedSuperclass",
+                           "jakarta.persistence.Converter"})
+public class EntityIndexProcessor
+		extends AbstractProcessor
+{
+	/**
+	 * The annotations that mark an indexed class
+	 */
+	private static final Set<String> indexedAnnotations = new HashSet<>(Arrays.asList("jakarta.persistence.Entity",
+	                                                                                  "jakarta.persistence.Embeddable",
+	                                                                                  "jakarta.persistence.MappedSuperclass",
+	                                                                                  "jakarta.persistence.Converter"));
+	/**
+	 * The class names found in this compile
+	 */
+	private final Set<String> classNames = new TreeSet<>();
+
+	/**
+	 * A new entity index processor
+	 */
+	public EntityIndexProcessor()
+	{
+		//No config required
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		for (TypeElement annotation : annotations)
+		{
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+			{
+				if (element instanceof TypeElement)
+				{
+					classNames.add(processingEnv.getElementUtils()
+					                            .getBinaryName((TypeElement) element)
+					                            .toString());
+				}
+			}
+		}
+		if (roundEnv.processingOver())
+		{
+			readPrevious();
+			writeIndex();
+		}
+		return false;
+	}
+
+	/**
+	 * Keeps the entries of an index written by a previous compile that still point to an indexed class
+	 */
+	private void readPrevious()
+	{
+		try
+		{
+			FileObject previous = processingEnv.getFiler()
+			                                   .getResource(StandardLocation.CLASS_OUTPUT, "", EntityIndex.INDEX_LOCATION);
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(previous.openInputStream(), StandardCharsets.UTF_8)))
+			{
+				String line;
+				while ((line = reader.readLine()) != null)
+				{
+					line = line.trim();
+					if (!line.isEmpty() && !line.startsWith("#") && isIndexed(line))
+					{
+						classNames.add(line);
+					}
+				}
+			}
+		}
+		catch (IOException | IllegalArgumentException e)
+		{
+			//No previous index
+		}
+	}
+
+	private boolean isIndexed(String className)
+	{
+		TypeElement type = processingEnv.getElementUtils()
+		                                .getTypeElement(className.replace('$', '.'));
+		if (type == null)
+		{
+			return false;
+		}
+		for (AnnotationMirror mirror : type.getAnnotationMirrors())
+		{
+			if (indexedAnnotations.contains(((TypeElement) mirror.getAnnotationType()
+			                                                     .asElement()).getQualifiedName()
+			                                                                  .toString()))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeIndex()
+	{
+		try
+		{
+			FileObject index = processingEnv.getFiler()
+			                                .createResource(StandardLocation.CLASS_OUTPUT, "", EntityIndex.INDEX_LOCATION);
+			try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8))
+			{
+				for (String className : classNames)
+				{
+					writer.write(className);
+					writer.write('\n');
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			processingEnv.getMessager()
+			             .printMessage(Diagnostic.Kind.WARNING, "Unable to write the entity index - " + e.getMessage());
+		}
+	}
+}
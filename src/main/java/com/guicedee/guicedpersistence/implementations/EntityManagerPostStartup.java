@@ -1,17 +1,28 @@
 package com.guicedee.guicedpersistence.implementations;
 
-import com.google.inject.Module;
+import com.google.inject.Key;
 import com.google.inject.persist.PersistService;
 import com.guicedee.guicedinjection.GuiceContext;
 import com.guicedee.guicedinjection.interfaces.IGuicePostStartup;
 import com.guicedee.guicedinjection.interfaces.JobService;
+import com.guicedee.guicedpersistence.db.BootSnapshot;
+import com.guicedee.guicedpersistence.injectors.CustomJpaPersistService;
 import com.guicedee.guicedpersistence.services.PersistenceServicesModule;
 import com.guicedee.logger.LogFactory;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 
 import java.lang.annotation.Annotation;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -19,65 +30,232 @@ import java.util.stream.Collectors;
 public class EntityManagerPostStartup
 		implements IGuicePostStartup<EntityManagerPostStartup>
 {
-	private static boolean blocking = true;
+	private static StartupMode startupMode = StartupMode.BLOCKING;
+	/**
+	 * The executor units are started on, a dedicated executor is created for each startup if null
+	 */
+	private static Executor startupExecutor;
+	/**
+	 * The maximum number of units that start at the same time
+	 */
+	private static int startupParallelism = Math.max(4, Runtime.getRuntime()
+	                                                           .availableProcessors());
+	/**
+	 * If the dedicated executor runs on virtual threads when the runtime offers them
+	 */
+	private static boolean virtualThreads;
+	/**
+	 * The pre-warm priority of each qualifier for on demand startup, higher starts first
+	 */
+	private static final Map<Class<? extends Annotation>, Integer> priorities = new ConcurrentHashMap<>();
 	private static boolean startPersistenceServices = true;
+	/**
+	 * The system property that enables the training run
+	 */
+	public static final String TRAINING_PROPERTY = "guicedpersistence.training";
+	/**
+	 * If every unit is started and warmed up for a class data sharing archive, see {@link PersistenceTrainingRun}
+	 */
+	private static boolean trainingRun = Boolean.getBoolean(TRAINING_PROPERTY);
+	/**
+	 * The work each unit runs in its training transaction
+	 */
+	private static BiConsumer<Class<? extends Annotation>, EntityManager> trainingWarmUp = PersistenceTrainingRun::selectFirstEntity;
+	/**
+	 * The number of units that failed to start or warm up in the training run
+	 */
+	private static volatile int trainingFailures;
 	
 	private static final Logger log = LogFactory.getLog(".persistence.EntityManagerPostStartup");
 	
 	@Override
 	public void postLoad()
 	{
-		if (startPersistenceServices)
+		BootSnapshot.save();
+		if (trainingRun)
+		{
+			train();
+		}
+		else if (startPersistenceServices)
 		{
 			LogFactory.getLog(EntityManagerPostStartup.class)
 			          .log(Level.CONFIG, "Starting up Entity Managers");
-			if (blocking)
+			if (startupMode == StartupMode.ON_DEMAND)
 			{
-				List<Map.Entry<Class<? extends Annotation>, Module>> collect = new ArrayList<>(PersistenceServicesModule.getModules()
-				                                                                                                        .entrySet());
-				collect.parallelStream().forEach(entry -> {
-					log.log(Level.CONFIG, "Starting " + entry);
-					try
-					{
-						PersistService ps = GuiceContext.get(PersistService.class, entry.getKey());
-						ps.start();
-						log.log(Level.CONFIG, "Started " + entry);
-					}
-					catch (Throwable t)
-					{
-						log.log(Level.SEVERE, "Fatal exception in starting Persistence Service - " + entry.getKey(), t);
-					}
-				});
+				preWarm();
 			}
 			else
 			{
-				PersistenceServicesModule.getModules()
-				                         .forEach((key, value) -> {
-					                         log.log(Level.CONFIG, "Starting Async " + key);
-					                         JobService.getInstance()
-					                                   .addJob("DatabaseStartups", () -> {
-						                                   try
-						                                   {
-							                                   PersistService ps = GuiceContext.get(PersistService.class, key);
-							                                   ps.start();
-							                                   log.log(Level.CONFIG, "Started " + key);
-						                                   }
-						                                   catch (Throwable t)
-						                                   {
-							                                   log.log(Level.SEVERE, "Fatal exception in starting Persistence Service - " + key, t);
-						                                   }
-					                                   });
-				                         });
+				CompletableFuture<Void> started = startUnits(new ArrayList<>(PersistenceServicesModule.getModules()
+				                                                                                      .keySet()));
+				if (startupMode == StartupMode.BLOCKING)
+				{
+					started.join();
+					PersistenceStartupReport.log();
+				}
+				else
+				{
+					started.whenComplete((v, t) -> PersistenceStartupReport.log());
+				}
 			}
 		}
 	}
 	
+	/**
+	 * Starts every unit, blocking until they are up, then runs the training warm-up of each
+	 */
+	private void train()
+	{
+		log.log(Level.CONFIG, "Starting the persistence training run");
+		List<Class<? extends Annotation>> keys = new ArrayList<>(PersistenceServicesModule.getModules()
+		                                                                                  .keySet());
+		startUnits(keys).join();
+		PersistenceStartupReport.log();
+		List<Class<? extends Annotation>> started = new ArrayList<>();
+		for (Class<? extends Annotation> key : keys)
+		{
+			if (getReadiness(key).isDone() && !getReadiness(key).isCompletedExceptionally())
+			{
+				started.add(key);
+			}
+		}
+		trainingFailures = keys.size() - started.size() + PersistenceTrainingRun.warmUp(started, trainingWarmUp)
+		                                                                        .size();
+	}
+
+	/**
+	 * Starts the units concurrently on the startup executor, each waits for the pool of its own datasource to fill
+	 *
+	 * @param keys
+	 * 		The qualifiers of the units to start
+	 *
+	 * @return A future that completes once every unit has started or failed
+	 */
+	private CompletableFuture<Void> startUnits(List<Class<? extends Annotation>> keys)
+	{
+		ExecutorService owned = startupExecutor == null ? createStartupExecutor() : null;
+		Executor executor = owned != null ? owned : startupExecutor;
+		Semaphore permits = new Semaphore(startupParallelism);
+		CompletableFuture<Void> all = CompletableFuture.allOf(keys.stream()
+		                                                          .map(key -> CompletableFuture.runAsync(() -> startUnit(key, permits), executor))
+		                                                          .toArray(CompletableFuture<?>[]::new));
+		if (owned != null)
+		{
+			all.whenComplete((v, t) -> owned.shutdown());
+		}
+		return all;
+	}
+	
+	private void startUnit(Class<? extends Annotation> key, Semaphore permits)
+	{
+		permits.acquireUninterruptibly();
+		try
+		{
+			startUnit(key);
+		}
+		finally
+		{
+			permits.release();
+		}
+	}
+	
+	private void startUnit(Class<? extends Annotation> key)
+	{
+		log.log(Level.CONFIG, "Starting " + key);
+		try
+		{
+			PersistService ps = GuiceContext.get(PersistService.class, key);
+			ps.start();
+			log.log(Level.CONFIG, "Started " + key);
+		}
+		catch (Throwable t)
+		{
+			log.log(Level.SEVERE, "Fatal exception in starting Persistence Service - " + key, t);
+		}
+	}
+	
+	/**
+	 * Creates the executor for a single startup, virtual threads when requested and available, otherwise a fixed pool of daemon
+	 * threads
+	 *
+	 * @return The executor, shut down once the startup completes
+	 */
+	private static ExecutorService createStartupExecutor()
+	{
+		if (virtualThreads)
+		{
+			try
+			{
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+				                                        .invoke(null);
+			}
+			catch (ReflectiveOperationException e)
+			{
+				log.config("Virtual threads are not available on this runtime, starting persistence units on platform threads");
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(startupParallelism, runnable -> {
+			Thread thread = new Thread(runnable, "persistence-startup-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Starts the units that were given a priority one after the other in the background, highest priority first.
+	 * <p>
+	 * The rest start on first use
+	 */
+	private void preWarm()
+	{
+		List<Map.Entry<Class<? extends Annotation>, Integer>> ordered = new ArrayList<>();
+		for (Class<? extends Annotation> key : PersistenceServicesModule.getModules()
+		                                                                .keySet())
+		{
+			Integer priority = priorities.get(key);
+			if (priority != null)
+			{
+				ordered.add(new AbstractMap.SimpleEntry<>(key, priority));
+			}
+		}
+		if (ordered.isEmpty())
+		{
+			return;
+		}
+		ordered.sort(Map.Entry.<Class<? extends Annotation>, Integer>comparingByValue()
+		                      .reversed());
+		JobService.getInstance()
+		          .addJob("DatabaseStartups", () -> {
+			          for (Map.Entry<Class<? extends Annotation>, Integer> entry : ordered)
+			          {
+				          log.log(Level.CONFIG, "Pre-warming " + entry.getKey() + " with priority " + entry.getValue());
+				          startUnit(entry.getKey());
+			          }
+			          PersistenceStartupReport.log();
+		          });
+	}
+	
+	/**
+	 * Returns the readiness of the entity manager factory of a qualifier, completing once it has started
+	 *
+	 * @param qualifier
+	 * 		The binding annotation of the database module
+	 *
+	 * @return The readiness future of the unit
+	 */
+	public static CompletableFuture<EntityManagerFactory> getReadiness(Class<? extends Annotation> qualifier)
+	{
+		return GuiceContext.get(Key.get(CustomJpaPersistService.class, qualifier))
+		                   .getReadiness();
+	}
+	
 	/**
 	 * If loading the entity managers should block the load
 	 */
 	public static boolean isBlocking()
 	{
-		return blocking;
+		return startupMode == StartupMode.BLOCKING;
 	}
 	
 	/**
@@ -87,7 +265,166 @@ public class EntityManagerPostStartup
 	 */
 	public static void setBlocking(boolean blocking)
 	{
-		EntityManagerPostStartup.blocking = blocking;
+		EntityManagerPostStartup.startupMode = blocking ? StartupMode.BLOCKING : StartupMode.ASYNC;
+	}
+	
+	/**
+	 * When the entity manager factories are started
+	 *
+	 * @return default blocking
+	 */
+	public static StartupMode getStartupMode()
+	{
+		return startupMode;
+	}
+	
+	/**
+	 * When the entity manager factories are started
+	 *
+	 * @param startupMode
+	 * 		default blocking
+	 */
+	public static void setStartupMode(StartupMode startupMode)
+	{
+		EntityManagerPostStartup.startupMode = startupMode;
+	}
+	
+	/**
+	 * The executor units are started on
+	 *
+	 * @return The executor, or null if a dedicated executor is created for each startup
+	 */
+	public static Executor getStartupExecutor()
+	{
+		return startupExecutor;
+	}
+	
+	/**
+	 * The executor units are started on, it is not shut down after startup
+	 *
+	 * @param startupExecutor
+	 * 		The executor, or null to create a dedicated executor for each startup
+	 */
+	public static void setStartupExecutor(Executor startupExecutor)
+	{
+		EntityManagerPostStartup.startupExecutor = startupExecutor;
+	}
+	
+	/**
+	 * The maximum number of units that start at the same time
+	 *
+	 * @return default the number of processors, at least 4
+	 */
+	public static int getStartupParallelism()
+	{
+		return startupParallelism;
+	}
+	
+	/**
+	 * The maximum number of units that start at the same time, also the size of the dedicated executor
+	 *
+	 * @param startupParallelism
+	 * 		default the number of processors, at least 4
+	 */
+	public static void setStartupParallelism(int startupParallelism)
+	{
+		EntityManagerPostStartup.startupParallelism = Math.max(1, startupParallelism);
+	}
+	
+	/**
+	 * If the dedicated executor runs on virtual threads when the runtime offers them
+	 *
+	 * @return default false
+	 */
+	public static boolean isVirtualThreads()
+	{
+		return virtualThreads;
+	}
+	
+	/**
+	 * If the dedicated executor runs on virtual threads when the runtime offers them, platform threads are used otherwise
+	 *
+	 * @param virtualThreads
+	 * 		default false
+	 */
+	public static void setVirtualThreads(boolean virtualThreads)
+	{
+		EntityManagerPostStartup.virtualThreads = virtualThreads;
+	}
+	
+	/**
+	 * Sets the pre-warm priority of a unit for on demand startup, units with a higher priority start first
+	 *
+	 * @param qualifier
+	 * 		The binding annotation of the database module
+	 * @param priority
+	 * 		The priority
+	 */
+	public static void setPriority(Class<? extends Annotation> qualifier, int priority)
+	{
+		priorities.put(qualifier, priority);
+	}
+	
+	/**
+	 * The pre-warm priorities of units for on demand startup
+	 *
+	 * @return The priorities by qualifier
+	 */
+	public static Map<Class<? extends Annotation>, Integer> getPriorities()
+	{
+		return priorities;
+	}
+	
+	/**
+	 * If every unit is started and warmed up for a class data sharing archive instead of the normal startup
+	 *
+	 * @return default the system property {@value #TRAINING_PROPERTY}
+	 */
+	public static boolean isTrainingRun()
+	{
+		return trainingRun;
+	}
+	
+	/**
+	 * If every unit is started and warmed up for a class data sharing archive instead of the normal startup
+	 *
+	 * @param trainingRun
+	 * 		default the system property {@value #TRAINING_PROPERTY}
+	 */
+	public static void setTrainingRun(boolean trainingRun)
+	{
+		EntityManagerPostStartup.trainingRun = trainingRun;
+	}
+	
+	/**
+	 * The work each unit runs in a read only transaction in the training run
+	 *
+	 * @return default selects one row of the first entity
+	 */
+	public static BiConsumer<Class<? extends Annotation>, EntityManager> getTrainingWarmUp()
+	{
+		return trainingWarmUp;
+	}
+	
+	/**
+	 * The work each unit runs in a read only transaction in the training run, given the qualifier and entity manager of the unit
+	 *
+	 * @param trainingWarmUp
+	 * 		default selects one row of the first entity
+	 */
+	public static void setTrainingWarmUp(BiConsumer<Class<? extends Annotation>, EntityManager> trainingWarmUp)
+	{
+		EntityManagerPostStartup.trainingWarmUp = trainingWarmUp;
+	}
+	
+	/**
+	 * The number of units that failed to start or warm up in the last training run
+	 *
+	 * @return The failed unit count
+	 */
+	public static int getTrainingFailures()
+	{
+		return trainingFailures;
 	}
 	
 	/**
@@ -3,6 +3,7 @@ package com.guicedee.guicedpersistence.implementations;
 import com.google.inject.persist.PersistService;
 import com.guicedee.guicedinjection.GuiceContext;
 import com.guicedee.guicedinjection.interfaces.IGuicePreDestroy;
+import com.guicedee.guicedpersistence.db.ConnectionBaseInfo;
 import com.guicedee.guicedpersistence.db.DatabaseModule;
 import com.guicedee.logger.LogFactory;
 
@@ -31,6 +32,8 @@ public class GuicedPersistenceDestroyer
 				log.log(Level.SEVERE, "Unable to close entity managers and factories for annotation [" + boundAnnotation.getCanonicalName() + "]", e);
 			}
 		}
+		DatabaseModule.resetEntityManagerReaders();
+		ConnectionBaseInfo.resetConnectionInfoReaders();
 	}
 
 	@Override
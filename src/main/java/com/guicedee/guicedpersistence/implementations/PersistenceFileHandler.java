@@ -1,17 +1,22 @@
 package com.guicedee.guicedpersistence.implementations;
 
-import com.guicedee.guicedinjection.interfaces.IFileContentsScanner;
 import com.guicedee.logger.LogFactory;
-import io.github.classgraph.ResourceList;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 import org.hibernate.jpa.boot.internal.PersistenceXmlParser;
 
+import jakarta.persistence.spi.PersistenceUnitTransactionType;
+import java.io.IOException;
+import java.net.URL;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
  * Loads persistence units from persistence files as found on the registered classpath
+ * <p>
+ * Discovery runs on first use, parsing every persistence.xml in parallel into a map indexed by unit name. Add resource roots
+ * before then to only read the files beneath them.
  */
 @SuppressWarnings("unused")
 public class PersistenceFileHandler
@@ -25,22 +30,25 @@ public class PersistenceFileHandler
 	 */
 	private static final String ignorePersistenceUnitProperty = "guicedpersistence.ignore";
 	/**
-	 * A list of all registered persistence units
+	 * The location of persistence files within a resource root
 	 */
-	private static final Set<ParsedPersistenceXmlDescriptor> persistenceUnits = new HashSet<>();
-	
-	static
-	{
-		List<ParsedPersistenceXmlDescriptor> parsedPersistenceXmlDescriptors = PersistenceXmlParser.locatePersistenceUnits(new HashMap());
-		for (ParsedPersistenceXmlDescriptor parsedPersistenceXmlDescriptor : parsedPersistenceXmlDescriptors)
-		{
-			System.out.println("Parsed XML Descriptor - " + parsedPersistenceXmlDescriptor.getName());
-		}
-		persistenceUnits.addAll(parsedPersistenceXmlDescriptors.stream()
-		                                                       .filter(a -> !"true".equals(a.getProperties()
-		                                                                                     .getProperty(ignorePersistenceUnitProperty, "false")))
-		                                                       .collect(Collectors.toList()));
-	}
+	private static final String persistenceFileLocation = "META-INF/persistence.xml";
+	/**
+	 * The resource roots to read persistence files from, all roots if empty
+	 */
+	private static final Set<String> resourceRoots = new LinkedHashSet<>();
+	/**
+	 * The persistence units registered in code by name, kept when the persistence files are read again
+	 */
+	private static final Map<String, ParsedPersistenceXmlDescriptor> registeredUnits = new LinkedHashMap<>();
+	/**
+	 * The persistence units found in persistence files by name, null until discovered
+	 */
+	private static volatile Map<String, ParsedPersistenceXmlDescriptor> discoveredUnits;
+	/**
+	 * The discovered and registered persistence units by name, null until built
+	 */
+	private static volatile Map<String, ParsedPersistenceXmlDescriptor> persistenceUnits;
 	
 	/**
 	 * A new persistence file handler
@@ -52,12 +60,291 @@ public class PersistenceFileHandler
 	
 	/**
 	 * Returns all the persistence units that were found or loaded
+	 * <p>
+	 * The set is a live view, adding a unit registers it as {@link #addPersistenceUnit(ParsedPersistenceXmlDescriptor)} does and
+	 * removing one drops it until the persistence files are read again
 	 *
 	 * @return A set of persistence units
 	 */
 	public static Set<ParsedPersistenceXmlDescriptor> getPersistenceUnits()
 	{
-		return PersistenceFileHandler.persistenceUnits;
+		return UnitsView.INSTANCE;
+	}
+	
+	/**
+	 * Returns the persistence unit with the given name
+	 *
+	 * @param name
+	 * 		The persistence unit name
+	 *
+	 * @return The persistence unit or null if none was found or loaded with the name
+	 */
+	public static ParsedPersistenceXmlDescriptor getPersistenceUnit(String name)
+	{
+		return getUnits().get(name);
+	}
+	
+	/**
+	 * Registers a persistence unit that was not found in a persistence file, replacing any unit with the same name.
+	 * <p>
+	 * Registered units are kept when the persistence files are read again
+	 *
+	 * @param persistenceUnit
+	 * 		The persistence unit
+	 */
+	public static synchronized void addPersistenceUnit(ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		registeredUnits.put(persistenceUnit.getName(), persistenceUnit);
+		persistenceUnits = null;
+	}
+	
+	/**
+	 * Removes a registered or discovered persistence unit, discovered units return when the persistence files are read again
+	 *
+	 * @param persistenceUnit
+	 * 		The persistence unit
+	 *
+	 * @return If the unit was removed
+	 */
+	private static synchronized boolean removePersistenceUnit(ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		boolean removed = registeredUnits.remove(persistenceUnit.getName(), persistenceUnit);
+		Map<String, ParsedPersistenceXmlDescriptor> discovered = discoveredUnits;
+		if (discovered != null && discovered.get(persistenceUnit.getName()) == persistenceUnit)
+		{
+			discovered = new LinkedHashMap<>(discovered);
+			discovered.remove(persistenceUnit.getName());
+			discoveredUnits = discovered;
+			removed = true;
+		}
+		if (removed)
+		{
+			persistenceUnits = null;
+		}
+		return removed;
+	}
+	
+	/**
+	 * Restricts discovery to persistence files beneath the given resource root, matched against the start of the file URL.
+	 * <p>
+	 * Units already discovered are read again on next use, registered units are kept
+	 *
+	 * @param resourceRoot
+	 * 		The URL of a jar or directory, e.g. file:/app/lib/entities.jar
+	 */
+	public static synchronized void addResourceRoot(String resourceRoot)
+	{
+		resourceRoots.add(resourceRoot);
+		discoveredUnits = null;
+		persistenceUnits = null;
+	}
+	
+	/**
+	 * The resource roots discovery is restricted to
+	 *
+	 * @return The resource roots, all roots are read if empty
+	 */
+	public static synchronized Set<String> getResourceRoots()
+	{
+		return Collections.unmodifiableSet(new LinkedHashSet<>(resourceRoots));
+	}
+	
+	private static Map<String, ParsedPersistenceXmlDescriptor> getUnits()
+	{
+		Map<String, ParsedPersistenceXmlDescriptor> units = persistenceUnits;
+		if (units == null)
+		{
+			synchronized (PersistenceFileHandler.class)
+			{
+				units = persistenceUnits;
+				if (units == null)
+				{
+					Map<String, ParsedPersistenceXmlDescriptor> discovered = discoveredUnits;
+					if (discovered == null)
+					{
+						discovered = discover();
+						discoveredUnits = discovered;
+					}
+					units = new LinkedHashMap<>(discovered);
+					units.putAll(registeredUnits);
+					persistenceUnits = units;
+				}
+			}
+		}
+		return units;
+	}
+	
+	/**
+	 * Locates the persistence files within the resource roots without parsing them
+	 *
+	 * @return The URLs of the persistence files, in classpath order
+	 */
+	public static synchronized List<URL> getPersistenceFiles()
+	{
+		List<URL> files = new ArrayList<>();
+		try
+		{
+			ClassLoader loader = Thread.currentThread()
+			                           .getContextClassLoader();
+			if (loader == null)
+			{
+				loader = PersistenceFileHandler.class.getClassLoader();
+			}
+			for (URL url : Collections.list(loader.getResources(persistenceFileLocation)))
+			{
+				if (isInResourceRoots(url))
+				{
+					files.add(url);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			log.log(Level.SEVERE, "Unable to search for persistence files", e);
+		}
+		return files;
+	}
+	
+	/**
+	 * Finds and parses the persistence files, one file per task
+	 *
+	 * @return The persistence units by name, in classpath order
+	 */
+	private static Map<String, ParsedPersistenceXmlDescriptor> discover()
+	{
+		List<URL> files = getPersistenceFiles();
+		List<Map<String, ParsedPersistenceXmlDescriptor>> parsed = files.parallelStream()
+		                                                                .map(PersistenceFileHandler::parse)
+		                                                                .collect(Collectors.toList());
+		Map<String, ParsedPersistenceXmlDescriptor> units = new LinkedHashMap<>();
+		for (Map<String, ParsedPersistenceXmlDescriptor> fileUnits : parsed)
+		{
+			for (ParsedPersistenceXmlDescriptor unit : fileUnits.values())
+			{
+				if ("true".equals(unit.getProperties()
+				                      .getProperty(ignorePersistenceUnitProperty, "false")))
+				{
+					continue;
+				}
+				if (units.putIfAbsent(unit.getName(), unit) != null)
+				{
+					log.warning("Duplicate persistence unit [" + unit.getName() + "] in " + unit.getPersistenceUnitRootUrl() + ", the first found is used");
+					continue;
+				}
+				log.config("Parsed XML Descriptor - " + unit.getName());
+			}
+		}
+		return units;
+	}
+	
+	private static Map<String, ParsedPersistenceXmlDescriptor> parse(URL file)
+	{
+		try
+		{
+			long start = System.nanoTime();
+			Map<String, ParsedPersistenceXmlDescriptor> units = PersistenceXmlParser.parse(file, PersistenceUnitTransactionType.RESOURCE_LOCAL, Collections.emptyMap());
+			long elapsed = System.nanoTime() - start;
+			for (String name : units.keySet())
+			{
+				PersistenceStartupReport.record(name, PersistenceStartupReport.Phase.DISCOVERY, elapsed);
+			}
+			return units;
+		}
+		catch (RuntimeException e)
+		{
+			log.log(Level.SEVERE, "Unable to parse persistence file " + file, e);
+			return Collections.emptyMap();
+		}
+	}
+	
+	private static boolean isInResourceRoots(URL file)
+	{
+		if (resourceRoots.isEmpty())
+		{
+			return true;
+		}
+		String location = file.toExternalForm();
+		for (String resourceRoot : resourceRoots)
+		{
+			if (location.startsWith(resourceRoot))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * The live set of persistence units returned from {@link #getPersistenceUnits()}
+	 */
+	private static final class UnitsView
+			extends AbstractSet<ParsedPersistenceXmlDescriptor>
+	{
+		private static final UnitsView INSTANCE = new UnitsView();
+		
+		@Override
+		public Iterator<ParsedPersistenceXmlDescriptor> iterator()
+		{
+			Iterator<ParsedPersistenceXmlDescriptor> units = getUnits().values()
+			                                                           .iterator();
+			return new Iterator<ParsedPersistenceXmlDescriptor>()
+			{
+				private ParsedPersistenceXmlDescriptor current;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return units.hasNext();
+				}
+				
+				@Override
+				public ParsedPersistenceXmlDescriptor next()
+				{
+					current = units.next();
+					return current;
+				}
+				
+				@Override
+				public void remove()
+				{
+					if (current == null)
+					{
+						throw new IllegalStateException();
+					}
+					removePersistenceUnit(current);
+					current = null;
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return getUnits().size();
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			return o instanceof ParsedPersistenceXmlDescriptor && getUnits().get(((ParsedPersistenceXmlDescriptor) o).getName()) == o;
+		}
+		
+		@Override
+		public boolean add(ParsedPersistenceXmlDescriptor persistenceUnit)
+		{
+			if (contains(persistenceUnit))
+			{
+				return false;
+			}
+			addPersistenceUnit(persistenceUnit);
+			return true;
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			return o instanceof ParsedPersistenceXmlDescriptor && removePersistenceUnit((ParsedPersistenceXmlDescriptor) o);
+		}
 	}
 	
 	/**
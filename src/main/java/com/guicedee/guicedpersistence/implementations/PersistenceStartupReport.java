@@ -0,0 +1,204 @@
+package com.guicedee.guicedpersistence.implementations;
+
+import com.guicedee.logger.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Times each boot phase of every persistence unit
+ * <p>
+ * Entries stay available after boot through {@link #getEntries()}, {@link #toJson()} and {@link #toTable()}. A phase recorded more
+ * than once for a unit is summed.
+ */
+public final class PersistenceStartupReport
+{
+	/**
+	 * The timed phases of a persistence unit, in boot order
+	 */
+	public enum Phase
+	{
+		/**
+		 * Parsing the persistence file that declares the unit, or reading it from the boot snapshot
+		 */
+		DISCOVERY,
+		/**
+		 * The entity manager property reader chain
+		 */
+		PROPERTY_READERS,
+		/**
+		 * Building and populating the connection base info
+		 */
+		CONNECTION_INFO,
+		/**
+		 * Creating and initialising the pooled datasource
+		 */
+		DATASOURCE,
+		/**
+		 * Creating the entity manager factory
+		 */
+		ENTITY_MANAGER_FACTORY
+	}
+
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LogFactory.getLog("PersistenceStartupReport");
+	/**
+	 * The nanoseconds spent in each phase by unit name, in the order units were first seen
+	 */
+	private static final Map<String, long[]> entries = new LinkedHashMap<>();
+
+	private PersistenceStartupReport()
+	{
+		//No config required
+	}
+
+	/**
+	 * Records the time a unit spent in a phase
+	 *
+	 * @param unitName
+	 * 		The persistence unit name
+	 * @param phase
+	 * 		The phase
+	 * @param nanos
+	 * 		The elapsed time in nanoseconds
+	 */
+	public static void record(String unitName, Phase phase, long nanos)
+	{
+		String name = unitName == null ? "(unnamed)" : unitName;
+		synchronized (entries)
+		{
+			entries.computeIfAbsent(name, k -> new long[Phase.values().length])[phase.ordinal()] += nanos;
+		}
+	}
+
+	/**
+	 * Returns the recorded phases of every unit
+	 *
+	 * @return The time spent in each recorded phase by unit name
+	 */
+	public static Map<String, Map<Phase, Duration>> getEntries()
+	{
+		Map<String, Map<Phase, Duration>> report = new LinkedHashMap<>();
+		synchronized (entries)
+		{
+			entries.forEach((unit, nanos) -> {
+				Map<Phase, Duration> phases = new EnumMap<>(Phase.class);
+				for (Phase phase : Phase.values())
+				{
+					if (nanos[phase.ordinal()] > 0)
+					{
+						phases.put(phase, Duration.ofNanos(nanos[phase.ordinal()]));
+					}
+				}
+				report.put(unit, phases);
+			});
+		}
+		return report;
+	}
+
+	/**
+	 * Renders the report as JSON, one object per unit with the milliseconds of each phase and the total
+	 *
+	 * @return The report
+	 */
+	public static JSONObject toJson()
+	{
+		JSONArray units = new JSONArray();
+		getEntries().forEach((unit, phases) -> {
+			JSONObject entry = new JSONObject();
+			entry.put("unit", unit);
+			long total = 0;
+			for (Map.Entry<Phase, Duration> phase : phases.entrySet())
+			{
+				entry.put(phase.getKey()
+				               .name()
+				               .toLowerCase(Locale.ROOT), toMillis(phase.getValue()));
+				total += phase.getValue()
+				              .toNanos();
+			}
+			entry.put("total", toMillis(Duration.ofNanos(total)));
+			units.put(entry);
+		});
+		return new JSONObject().put("units", units);
+	}
+
+	/**
+	 * Renders the report as a text table in milliseconds, slowest unit first
+	 *
+	 * @return The report
+	 */
+	public static String toTable()
+	{
+		List<Map.Entry<String, Map<Phase, Duration>>> rows = new ArrayList<>(getEntries().entrySet());
+		rows.sort(Comparator.comparingLong((Map.Entry<String, Map<Phase, Duration>> row) -> total(row.getValue()))
+		                    .reversed());
+		int width = "Unit".length();
+		for (Map.Entry<String, Map<Phase, Duration>> row : rows)
+		{
+			width = Math.max(width, row.getKey()
+			                           .length());
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-" + width + "s", "Unit"));
+		for (Phase phase : Phase.values())
+		{
+			sb.append(String.format(" %24s", phase.name()));
+		}
+		sb.append(String.format(" %12s%n", "TOTAL"));
+		for (Map.Entry<String, Map<Phase, Duration>> row : rows)
+		{
+			sb.append(String.format("%-" + width + "s", row.getKey()));
+			for (Phase phase : Phase.values())
+			{
+				Duration duration = row.getValue()
+				                       .get(phase);
+				sb.append(String.format(" %24s", duration == null ? "-" : String.format("%.1f", toMillis(duration))));
+			}
+			sb.append(String.format(" %12.1f%n", total(row.getValue()) / 1_000_000d));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Logs the table of the report
+	 */
+	public static void log()
+	{
+		if (log.isLoggable(Level.CONFIG))
+		{
+			log.config("Persistence startup report" + System.lineSeparator() + toTable());
+		}
+	}
+
+	/**
+	 * Clears every recorded entry
+	 */
+	public static void reset()
+	{
+		synchronized (entries)
+		{
+			entries.clear();
+		}
+	}
+
+	private static long total(Map<Phase, Duration> phases)
+	{
+		long total = 0;
+		for (Duration duration : phases.values())
+		{
+			total += duration.toNanos();
+		}
+		return total;
+	}
+
+	private static double toMillis(Duration duration)
+	{
+		return duration.toNanos() / 1_000_000d;
+	}
+}
@@ -0,0 +1,130 @@
+package com.guicedee.guicedpersistence.implementations;
+
+import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedpersistence.injectors.TransactionWarmUp;
+import com.guicedee.logger.LogFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.metamodel.EntityType;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A launcher that boots every persistence unit, runs one read only transaction per unit through the transaction interceptor and
+ * exits, so the Guice, Hibernate and BTM classes used at startup can be archived for class data sharing
+ * <p>
+ * Run it with the application classpath and the archive options of the JVM, on JDK 13 and later
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=persistence.jsa -cp app.jar com.guicedee.guicedpersistence.implementations.PersistenceTrainingRun
+ * java -XX:SharedArchiveFile=persistence.jsa -cp app.jar ...
+ * </pre>
+ * On JDK 11 dump the class list with -XX:DumpLoadedClassList=persistence.lst and build the archive with -Xshare:dump
+ * -XX:SharedClassListFile=persistence.lst -XX:SharedArchiveFile=persistence.jsa.
+ * <p>
+ * The run exits with 1 if a unit failed to start or warm up. The warm-up is set with
+ * {@link EntityManagerPostStartup#setTrainingWarmUp(BiConsumer)}, by default it selects one row of the first entity of each unit.
+ */
+public final class PersistenceTrainingRun
+{
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LogFactory.getLog("PersistenceTrainingRun");
+
+	private PersistenceTrainingRun()
+	{
+		//No config required
+	}
+
+	/**
+	 * Boots the injector in training mode, warms up every unit and shuts down
+	 *
+	 * @param args
+	 * 		Unused
+	 */
+	public static void main(String[] args)
+	{
+		EntityManagerPostStartup.setTrainingRun(true);
+		int failures;
+		try
+		{
+			GuiceContext.inject();
+			failures = EntityManagerPostStartup.getTrainingFailures();
+		}
+		catch (Throwable t)
+		{
+			log.log(Level.SEVERE, "Training run failed to boot", t);
+			failures = 1;
+		}
+		finally
+		{
+			GuiceContext.destroy();
+		}
+		log.config("Training run complete with " + failures + " failures");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Runs the warm-up of each unit in a read only transaction through the transaction interceptor
+	 *
+	 * @param qualifiers
+	 * 		The binding annotations of the units
+	 * @param warmUp
+	 * 		The work to run with the entity manager of each unit
+	 *
+	 * @return The qualifiers of the units that failed
+	 */
+	static List<Class<? extends Annotation>> warmUp(List<Class<? extends Annotation>> qualifiers, BiConsumer<Class<? extends Annotation>, EntityManager> warmUp)
+	{
+		TransactionWarmUp transactionWarmUp = new TransactionWarmUp();
+		List<Class<? extends Annotation>> failed = new ArrayList<>();
+		for (Class<? extends Annotation> qualifier : qualifiers)
+		{
+			long start = System.nanoTime();
+			try
+			{
+				transactionWarmUp.run(qualifier, warmUp);
+				log.config("Warmed up " + qualifier + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+			}
+			catch (Throwable t)
+			{
+				log.log(Level.WARNING, "Unable to warm up " + qualifier, t);
+				failed.add(qualifier);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Selects one row of the first entity of the unit, if it has any
+	 *
+	 * @param qualifier
+	 * 		The binding annotation of the unit
+	 * @param entityManager
+	 * 		The entity manager of the unit
+	 */
+	static void selectFirstEntity(Class<? extends Annotation> qualifier, EntityManager entityManager)
+	{
+		for (EntityType<?> entity : entityManager.getMetamodel()
+		                                         .getEntities())
+		{
+			selectFirst(entityManager, entity.getJavaType());
+			return;
+		}
+	}
+
+	private static <T> void selectFirst(EntityManager entityManager, Class<T> type)
+	{
+		CriteriaQuery<T> query = entityManager.getCriteriaBuilder()
+		                                      .createQuery(type);
+		query.select(query.from(type));
+		entityManager.createQuery(query)
+		             .setMaxResults(1)
+		             .getResultList();
+	}
+}
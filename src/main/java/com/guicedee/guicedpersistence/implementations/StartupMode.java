@@ -0,0 +1,20 @@
+package com.guicedee.guicedpersistence.implementations;
+
+/**
+ * When the entity manager factories are started after the injector is built
+ */
+public enum StartupMode
+{
+	/**
+	 * Every unit is started in parallel before the load sequence continues
+	 */
+	BLOCKING,
+	/**
+	 * Every unit is started in the background
+	 */
+	ASYNC,
+	/**
+	 * Units are started on first use, units given a priority are pre-warmed in the background in priority order
+	 */
+	ON_DEMAND
+}
@@ -0,0 +1,114 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flushes and clears a session after every window of top level persists, for transactions that declare a batch size.
+ * <p>
+ * Keeps the persistence context of large imports bounded, sessions without an open window are not touched
+ */
+final class BatchWindowListener
+		implements PersistEventListener
+{
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The single registered instance
+	 */
+	private static final BatchWindowListener INSTANCE = new BatchWindowListener();
+	/**
+	 * The open windows by session
+	 */
+	private static final Map<Object, Window> windows = new ConcurrentHashMap<>();
+
+	private BatchWindowListener()
+	{
+		//Single instance
+	}
+
+	/**
+	 * Registers the listener ahead of the default persist listener of the factory
+	 *
+	 * @param entityManagerFactory
+	 * 		The started factory
+	 */
+	static void register(EntityManagerFactory entityManagerFactory)
+	{
+		entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+		                    .getServiceRegistry()
+		                    .getService(EventListenerRegistry.class)
+		                    .prependListeners(EventType.PERSIST, INSTANCE);
+	}
+
+	/**
+	 * Starts flushing and clearing the session every given number of persists
+	 *
+	 * @param session
+	 * 		The session of the transaction
+	 * @param size
+	 * 		The number of persists per window
+	 */
+	static void open(Session session, int size)
+	{
+		windows.put(session, new Window(size));
+	}
+
+	/**
+	 * Stops the windows for the session
+	 *
+	 * @param session
+	 * 		The session of the transaction
+	 */
+	static void close(Session session)
+	{
+		windows.remove(session);
+	}
+
+	@Override
+	public void onPersist(PersistEvent event)
+	{
+		Window window = windows.get(event.getSession());
+		if (window == null)
+		{
+			return;
+		}
+		if (window.count == window.size)
+		{
+			event.getSession()
+			     .flush();
+			event.getSession()
+			     .clear();
+			window.count = 0;
+		}
+		window.count++;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void onPersist(PersistEvent event, Map createdAlready)
+	{
+		//Cascaded persists do not count towards the window
+	}
+
+	/**
+	 * A window for a single session, only touched by the thread using the session
+	 */
+	private static final class Window
+	{
+		private final int size;
+		private int count;
+
+		private Window(int size)
+		{
+			this.size = size;
+		}
+	}
+}
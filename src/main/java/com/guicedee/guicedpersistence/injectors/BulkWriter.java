@@ -0,0 +1,448 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedpersistence.services.ITransactionHandler;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.logger.LogFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static jakarta.persistence.spi.PersistenceUnitTransactionType.JTA;
+
+/**
+ * Writes large amounts of entities through a Hibernate {@link StatelessSession} in chunked JDBC batches, without a persistence
+ * context.
+ * <p>
+ * Runs in the running transaction of the qualifier if there is one, otherwise begins its own through the qualifiers
+ * {@link ITransactionHandler}, committing every commit interval entities.
+ * <p>
+ * Bound per qualifier, every injection is a new writer so the chunk size and commit interval can be set per use
+ */
+@SuppressWarnings({"rawtypes", "unused"})
+public class BulkWriter
+{
+	/**
+	 * Field log
+	 */
+	private static final Logger log = LogFactory.getLog("BulkWriter");
+
+	/**
+	 * The operation applied to every entity
+	 */
+	private enum Operation
+	{
+		INSERT,
+		UPDATE,
+		UPSERT
+	}
+
+	/**
+	 * The persist service of the qualifier
+	 */
+	private final CustomJpaPersistService persistService;
+	/**
+	 * The number of entities sent in a single JDBC batch
+	 */
+	private int chunkSize = 500;
+	/**
+	 * The number of entities written between commits of a transaction begun by the writer, 0 commits once at the end
+	 */
+	private int commitInterval;
+
+	/**
+	 * Creates a writer for the persist service of a qualifier
+	 *
+	 * @param persistService
+	 * 		The persist service
+	 */
+	public BulkWriter(CustomJpaPersistService persistService)
+	{
+		this.persistService = persistService;
+	}
+
+	/**
+	 * Inserts every entity
+	 *
+	 * @param entities
+	 * 		The entities to insert
+	 *
+	 * @return The number of entities written
+	 */
+	public long insert(Iterable<?> entities)
+	{
+		return write(entities.iterator(), Operation.INSERT);
+	}
+
+	/**
+	 * Inserts every entity
+	 *
+	 * @param entities
+	 * 		The entities to insert
+	 *
+	 * @return The number of entities written
+	 */
+	public long insert(Stream<?> entities)
+	{
+		return write(entities.iterator(), Operation.INSERT);
+	}
+
+	/**
+	 * Updates every entity
+	 *
+	 * @param entities
+	 * 		The entities to update
+	 *
+	 * @return The number of entities written
+	 */
+	public long update(Iterable<?> entities)
+	{
+		return write(entities.iterator(), Operation.UPDATE);
+	}
+
+	/**
+	 * Updates every entity
+	 *
+	 * @param entities
+	 * 		The entities to update
+	 *
+	 * @return The number of entities written
+	 */
+	public long update(Stream<?> entities)
+	{
+		return write(entities.iterator(), Operation.UPDATE);
+	}
+
+	/**
+	 * Updates the entities that exist and inserts the rest, existence is checked with one query per chunk and entity type
+	 * <p>
+	 * The check and the write are separate statements, so this is not atomic. A row inserted by another transaction between them
+	 * fails the insert with a constraint violation, and a row deleted between them is not written. Do not upsert the same rows
+	 * concurrently.
+	 *
+	 * @param entities
+	 * 		The entities to write
+	 *
+	 * @return The number of entities written
+	 */
+	public long upsert(Iterable<?> entities)
+	{
+		return write(entities.iterator(), Operation.UPSERT);
+	}
+
+	/**
+	 * Updates the entities that exist and inserts the rest, existence is checked with one query per chunk and entity type
+	 * <p>
+	 * The check and the write are separate statements, so this is not atomic. A row inserted by another transaction between them
+	 * fails the insert with a constraint violation, and a row deleted between them is not written. Do not upsert the same rows
+	 * concurrently.
+	 *
+	 * @param entities
+	 * 		The entities to write
+	 *
+	 * @return The number of entities written
+	 */
+	public long upsert(Stream<?> entities)
+	{
+		return write(entities.iterator(), Operation.UPSERT);
+	}
+
+	private long write(Iterator<?> entities, Operation operation)
+	{
+		boolean startedWork = false;
+		if (!persistService.isWorking())
+		{
+			persistService.begin();
+			startedWork = true;
+		}
+		EntityManager em = persistService.get();
+		ParsedPersistenceXmlDescriptor unit = GuiceContext.get(Key.get(ParsedPersistenceXmlDescriptor.class, persistService.getAnnotation()));
+		ITransactionHandler handler = GuiceContext.get(TransactionHandlerDispatchTable.class)
+		                                          .getEnabledHandler(unit);
+		boolean ownTransaction = handler != null && !handler.transactionExists(em, unit);
+		boolean jta = unit.getTransactionType() == JTA;
+		Session session = em.unwrap(Session.class);
+
+		long written = 0;
+		long sinceCommit = 0;
+		StatelessSession stateless = null;
+		try
+		{
+			if (ownTransaction)
+			{
+				handler.beginTransacation(false, em, unit);
+			}
+			stateless = open(session, jta);
+			List<Object> chunk = new ArrayList<>(chunkSize);
+			while (entities.hasNext())
+			{
+				chunk.add(entities.next());
+				if (chunk.size() >= chunkSize)
+				{
+					written += writeChunk(stateless, session.getSessionFactory(), chunk, operation);
+					sinceCommit += chunk.size();
+					chunk.clear();
+					if (ownTransaction && commitInterval > 0 && sinceCommit >= commitInterval)
+					{
+						stateless.close();
+						stateless = null;
+						handler.commitTransacation(false, em, unit);
+						handler.beginTransacation(false, em, unit);
+						stateless = open(session, jta);
+						sinceCommit = 0;
+					}
+				}
+			}
+			if (!chunk.isEmpty())
+			{
+				written += writeChunk(stateless, session.getSessionFactory(), chunk, operation);
+			}
+			stateless.close();
+			stateless = null;
+			if (ownTransaction)
+			{
+				handler.commitTransacation(false, em, unit);
+			}
+			return written;
+		}
+		catch (RuntimeException e)
+		{
+			if (stateless != null)
+			{
+				stateless.close();
+			}
+			if (ownTransaction && handler.transactionExists(em, unit))
+			{
+				handler.rollbackTransacation(false, em, unit);
+			}
+			log.log(Level.SEVERE, "Bulk " + operation.name()
+			                                         .toLowerCase() + " failed after " + written + " entities", e);
+			throw e;
+		}
+		finally
+		{
+			if (startedWork)
+			{
+				persistService.end();
+			}
+		}
+	}
+
+	/**
+	 * Opens a stateless session inside the running transaction.
+	 * <p>
+	 * JTA connections are enlisted by the pool, resource local units share the connection of the entity manager
+	 */
+	private StatelessSession open(Session session, boolean jta)
+	{
+		StatelessSession stateless;
+		if (jta)
+		{
+			stateless = session.getSessionFactory()
+			                   .openStatelessSession();
+		}
+		else
+		{
+			Connection connection = session.doReturningWork(c -> c);
+			stateless = session.getSessionFactory()
+			                   .openStatelessSession(connection);
+		}
+		stateless.setJdbcBatchSize(chunkSize);
+		return stateless;
+	}
+
+	private int writeChunk(StatelessSession stateless, SessionFactory sessionFactory, List<Object> chunk, Operation operation)
+	{
+		switch (operation)
+		{
+			case INSERT:
+			{
+				for (Object entity : chunk)
+				{
+					stateless.insert(entity);
+				}
+				break;
+			}
+			case UPDATE:
+			{
+				for (Object entity : chunk)
+				{
+					stateless.update(entity);
+				}
+				break;
+			}
+			default:
+			{
+				upsertChunk(stateless, sessionFactory, chunk);
+				break;
+			}
+		}
+		((SharedSessionContractImplementor) stateless).getJdbcCoordinator()
+		                                              .executeBatch();
+		return chunk.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void upsertChunk(StatelessSession stateless, SessionFactory sessionFactory, List<Object> chunk)
+	{
+		SessionFactoryImplementor factory = sessionFactory.unwrap(SessionFactoryImplementor.class);
+		PersistenceUnitUtil util = factory.getPersistenceUnitUtil();
+		Map<Class<?>, List<Object>> byType = new LinkedHashMap<>();
+		for (Object entity : chunk)
+		{
+			byType.computeIfAbsent(entity.getClass(), k -> new ArrayList<>())
+			      .add(entity);
+		}
+		for (Map.Entry<Class<?>, List<Object>> entry : byType.entrySet())
+		{
+			EntityPersister persister = factory.getMetamodel()
+			                                   .entityPersister(entry.getKey());
+			String idName = persister.getIdentifierPropertyName();
+			List<Object> ids = new ArrayList<>();
+			for (Object entity : entry.getValue())
+			{
+				Object id = util.getIdentifier(entity);
+				if (id != null)
+				{
+					ids.add(id);
+				}
+			}
+			Set<Object> existing = new HashSet<>();
+			if (!ids.isEmpty())
+			{
+				if (idName != null)
+				{
+					existing.addAll(stateless.createQuery("select e." + idName + " from " + persister.getEntityName() + " e where e." + idName + " in (:ids)")
+					                         .setParameterList("ids", ids)
+					                         .list());
+				}
+				else
+				{
+					for (Object id : ids)
+					{
+						if (stateless.get(persister.getEntityName(), (Serializable) id) != null)
+						{
+							existing.add(id);
+						}
+					}
+				}
+			}
+			for (Object entity : entry.getValue())
+			{
+				Object id = util.getIdentifier(entity);
+				if (id != null && existing.contains(id))
+				{
+					stateless.update(entity);
+				}
+				else
+				{
+					stateless.insert(entity);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The number of entities sent in a single JDBC batch
+	 *
+	 * @return default 500
+	 */
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * The number of entities sent in a single JDBC batch
+	 *
+	 * @param chunkSize
+	 * 		default 500
+	 *
+	 * @return This writer
+	 */
+	public BulkWriter setChunkSize(int chunkSize)
+	{
+		this.chunkSize = Math.max(1, chunkSize);
+		return this;
+	}
+
+	/**
+	 * The number of entities written between commits of a transaction begun by the writer
+	 *
+	 * @return default 0, a single commit at the end
+	 */
+	public int getCommitInterval()
+	{
+		return commitInterval;
+	}
+
+	/**
+	 * The number of entities written between commits of a transaction begun by the writer.
+	 * <p>
+	 * Ignored when the writer runs inside an existing transaction
+	 *
+	 * @param commitInterval
+	 * 		default 0, a single commit at the end
+	 *
+	 * @return This writer
+	 */
+	public BulkWriter setCommitInterval(int commitInterval)
+	{
+		this.commitInterval = Math.max(0, commitInterval);
+		return this;
+	}
+
+	public static class BulkWriterProvider
+			implements Provider<BulkWriter>
+	{
+		private CustomJpaPersistService emProvider;
+
+		public BulkWriterProvider()
+		{
+		}
+
+		@Inject
+		public BulkWriterProvider(CustomJpaPersistService emProvider)
+		{
+			this.emProvider = emProvider;
+		}
+
+		public CustomJpaPersistService getEmProvider()
+		{
+			return emProvider;
+		}
+
+		public void setEmProvider(CustomJpaPersistService emProvider)
+		{
+			this.emProvider = emProvider;
+		}
+
+		@Override
+		public BulkWriter get()
+		{
+			return new BulkWriter(emProvider);
+		}
+	}
+}
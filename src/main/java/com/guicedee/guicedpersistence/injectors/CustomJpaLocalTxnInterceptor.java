@@ -21,16 +21,20 @@ import com.google.inject.Key;
 import com.google.inject.persist.Transactional;
 import com.google.inject.persist.UnitOfWork;
 import com.guicedee.guicedinjection.GuiceContext;
-import com.guicedee.guicedpersistence.scanners.PersistenceServiceLoadersBinder;
 import com.guicedee.guicedpersistence.services.ITransactionHandler;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.guicedpersistence.services.TransactionMetricsPublisher;
+import com.guicedee.guicedpersistence.services.TransactionOutcome;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 
 import jakarta.persistence.EntityManager;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Dhanji R. Prasanna (dhanji@gmail.com)
@@ -39,42 +43,101 @@ public class CustomJpaLocalTxnInterceptor
 		implements MethodInterceptor
 {
 	/**
-	 * Is this the starting @Transactional?
+	 * The compiled rollback rules for every intercepted method
 	 */
-	private final ThreadLocal<Boolean> didWeStartWork = new ThreadLocal<>();
+	private final Map<Method, RollbackRules> rollbackRules = new ConcurrentHashMap<>();
 	/**
 	 * Injected provider for em
 	 */
 	@Inject
 	private CustomJpaPersistService emProvider = null;
+	/**
+	 * The per unit handler lookup
+	 */
+	private TransactionHandlerDispatchTable dispatchTable;
+	/**
+	 * The transaction metrics listeners
+	 */
+	private TransactionMetricsPublisher metricsPublisher;
+	/**
+	 * The unit of work for the providers annotation, resolved on first use
+	 */
+	private volatile UnitOfWork unitOfWork;
+	/**
+	 * The persist service for the providers annotation, resolved on first use
+	 */
+	private volatile CustomJpaPersistService persistService;
+	/**
+	 * The persistence unit for the providers annotation, resolved on first use
+	 */
+	private volatile ParsedPersistenceXmlDescriptor unit;
+
+	public CustomJpaLocalTxnInterceptor()
+	{
+		//No config required
+	}
+
+	/**
+	 * Creates an interceptor using the given handler lookup and metrics listeners
+	 *
+	 * @param dispatchTable
+	 * 		The dispatch table built for the injector
+	 * @param metricsPublisher
+	 * 		The metrics listeners loaded for the injector
+	 */
+	public CustomJpaLocalTxnInterceptor(TransactionHandlerDispatchTable dispatchTable, TransactionMetricsPublisher metricsPublisher)
+	{
+		this.dispatchTable = dispatchTable;
+		this.metricsPublisher = metricsPublisher;
+	}
 
 	@Override
-	@SuppressWarnings("Duplicates")
 	public Object invoke(MethodInvocation methodInvocation) throws Throwable
 	{
+		if (emProvider.isScopeBound() && !emProvider.isWorking())
+		{
+			return emProvider.callInScope(() -> {
+				try
+				{
+					return invokeInWork(methodInvocation);
+				}
+				catch (Exception | Error e)
+				{
+					throw e;
+				}
+				catch (Throwable T)
+				{
+					throw new UndeclaredThrowableException(T);
+				}
+			});
+		}
+		return invokeInWork(methodInvocation);
+	}
+
+	@SuppressWarnings({"Duplicates", "rawtypes"})
+	private Object invokeInWork(MethodInvocation methodInvocation) throws Throwable
+	{
+		boolean startedWork = false;
 		if (!emProvider.isWorking())
 		{
 			emProvider.begin();
-			didWeStartWork.set(true);
+			startedWork = true;
 		}
 
-		Transactional transactional = readTransactionMetadata(methodInvocation);
+		RollbackRules rules = getRollbackRules(methodInvocation);
 		EntityManager em = emProvider.get();
-		Class<? extends Annotation> providedAnnotation = emProvider.getAnnotation();
-		UnitOfWork unitOfWork = GuiceContext.get(Key.get(UnitOfWork.class, emProvider.getAnnotation()));
-		CustomJpaPersistService persistService =GuiceContext.get(Key.get(CustomJpaPersistService.class, emProvider.getAnnotation()));
-
-		ParsedPersistenceXmlDescriptor unit = GuiceContext.get(Key.get(ParsedPersistenceXmlDescriptor.class, providedAnnotation));
-		Boolean startedWork = didWeStartWork.get() == null ? false : didWeStartWork.get();
+		resolveBindings();
+		ParsedPersistenceXmlDescriptor unit = this.unit;
 		if (startedWork) {
 			persistService.start();
 			unitOfWork.begin();
 		}
 
+		ITransactionHandler[] handlers = dispatchTable.getActiveHandlers(unit);
 		boolean transactionIsActive = false;
-		for (ITransactionHandler handler : GuiceContext.get(PersistenceServiceLoadersBinder.ITransactionHandlerReader))
+		for (ITransactionHandler handler : handlers)
 		{
-			if (handler.active(unit) && handler.transactionExists(em, unit))
+			if (handler.transactionExists(em, unit))
 			{
 				transactionIsActive = true;
 				break;
@@ -86,13 +149,13 @@ public class CustomJpaLocalTxnInterceptor
 			return methodInvocation.proceed();
 		}
 
-		for (ITransactionHandler handler : GuiceContext.get(PersistenceServiceLoadersBinder.ITransactionHandlerReader))
+		boolean recording = metricsPublisher.isRecording();
+		long started = recording ? System.nanoTime() : 0L;
+		for (ITransactionHandler handler : handlers)
 		{
-			if (handler.active(unit))
-			{
-				handler.beginTransacation(false, em, unit);
-			}
+			handler.beginTransacation(false, em, unit);
 		}
+		long begun = recording ? System.nanoTime() : 0L;
 
 		Object result;
 		try
@@ -102,20 +165,23 @@ public class CustomJpaLocalTxnInterceptor
 		}
 		catch (Exception e)
 		{
-			if (rollbackIfNecessary(transactional, e, unit, em))
+			long bodyEnded = recording ? System.nanoTime() : 0L;
+			boolean committed = rollbackIfNecessary(rules, e, handlers, unit, em);
+			if (committed)
 			{
-				for (ITransactionHandler handler : GuiceContext.get(PersistenceServiceLoadersBinder.ITransactionHandlerReader))
+				for (ITransactionHandler handler : handlers)
 				{
-					if (handler.active(unit))
-					{
-						handler.commitTransacation(false, em, unit);
-					}
+					handler.commitTransacation(false, em, unit);
 				}
 			}
+			if (recording)
+			{
+				metricsPublisher.publish(methodInvocation.getMethod(), emProvider.getAnnotation(),
+				                         committed ? TransactionOutcome.COMMITTED : TransactionOutcome.ROLLED_BACK, started, begun, bodyEnded, System.nanoTime());
+			}
 
 			if (startedWork)
 			{
-				didWeStartWork.remove();
 				unitOfWork.end();
 				persistService.end();
 			}
@@ -124,21 +190,24 @@ public class CustomJpaLocalTxnInterceptor
 
 		}
 
+		long bodyEnded = recording ? System.nanoTime() : 0L;
+		TransactionOutcome outcome = TransactionOutcome.FAILED;
 		try
 		{
-			for (ITransactionHandler handler : GuiceContext.get(PersistenceServiceLoadersBinder.ITransactionHandlerReader))
+			for (ITransactionHandler handler : handlers)
 			{
-				if (handler.active(unit))
-				{
-					handler.commitTransacation(false, em, unit);
-				}
+				handler.commitTransacation(false, em, unit);
 			}
+			outcome = TransactionOutcome.COMMITTED;
 		}
 		finally
 		{
+			if (recording)
+			{
+				metricsPublisher.publish(methodInvocation.getMethod(), emProvider.getAnnotation(), outcome, started, begun, bodyEnded, System.nanoTime());
+			}
 			if (startedWork)
 			{
-				didWeStartWork.remove();
 				unitOfWork.end();
 				persistService.end();
 			}
@@ -147,6 +216,47 @@ public class CustomJpaLocalTxnInterceptor
 		return result;
 	}
 
+	/**
+	 * Looks up the qualified bindings for the providers annotation once
+	 */
+	private void resolveBindings()
+	{
+		if (unit == null)
+		{
+			if (dispatchTable == null)
+			{
+				dispatchTable = GuiceContext.get(TransactionHandlerDispatchTable.class);
+			}
+			if (metricsPublisher == null)
+			{
+				metricsPublisher = GuiceContext.get(TransactionMetricsPublisher.class);
+			}
+			unitOfWork = GuiceContext.get(Key.get(UnitOfWork.class, emProvider.getAnnotation()));
+			persistService = GuiceContext.get(Key.get(CustomJpaPersistService.class, emProvider.getAnnotation()));
+			unit = GuiceContext.get(Key.get(ParsedPersistenceXmlDescriptor.class, emProvider.getAnnotation()));
+		}
+	}
+
+	/**
+	 * Returns the compiled rollback rules for the invoked method, reading the metadata only on the first call
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 *
+	 * @return The rollback rules of the method
+	 */
+	private RollbackRules getRollbackRules(MethodInvocation methodInvocation)
+	{
+		Method method = methodInvocation.getMethod();
+		RollbackRules rules = rollbackRules.get(method);
+		if (rules == null)
+		{
+			Transactional transactional = readTransactionMetadata(methodInvocation);
+			rules = rollbackRules.computeIfAbsent(method, m -> new RollbackRules(transactional.rollbackOn(), transactional.ignore()));
+		}
+		return rules;
+	}
+
 	/**
 	 * Method readTransactionMetadata ...
 	 *
@@ -178,48 +288,29 @@ public class CustomJpaLocalTxnInterceptor
 	/**
 	 * Returns True if rollback DID NOT HAPPEN (i.e. if commit should continue).
 	 *
-	 * @param transactional
-	 * 		The metadata annotation of the method
+	 * @param rules
+	 * 		The compiled rollback rules of the method
 	 * @param e
 	 * 		The exception to test for rollback
+	 * @param handlers
+	 * 		The active handlers for the unit
 	 * @param em
 	 * 		Entity Manager
 	 * @param unit
 	 * 		The associated persistence unit
 	 */
-	@SuppressWarnings("Duplicates")
-	private boolean rollbackIfNecessary(Transactional transactional, Exception e, ParsedPersistenceXmlDescriptor unit, EntityManager em)
+	@SuppressWarnings("rawtypes")
+	private boolean rollbackIfNecessary(RollbackRules rules, Exception e, ITransactionHandler[] handlers, ParsedPersistenceXmlDescriptor unit, EntityManager em)
 	{
-		boolean commit = true;
-		for (Class<? extends Exception> rollBackOn : transactional.rollbackOn())
+		if (rules.requiresRollback(e))
 		{
-			if (rollBackOn.isInstance(e))
+			for (ITransactionHandler handler : handlers)
 			{
-				commit = false;
-				for (Class<? extends Exception> exceptOn : transactional.ignore())
-				{
-					if (exceptOn.isInstance(e))
-					{
-						commit = true;
-						break;
-					}
-				}
-
-				if (!commit)
-				{
-					for (ITransactionHandler handler : GuiceContext.get(PersistenceServiceLoadersBinder.ITransactionHandlerReader))
-					{
-						if (handler.active(unit))
-						{
-							handler.rollbackTransacation(false, em, unit);
-						}
-					}
-				}
-				break;
+				handler.rollbackTransacation(false, em, unit);
 			}
+			return false;
 		}
-
-		return commit;
+		return true;
 	}
 
 	@Transactional
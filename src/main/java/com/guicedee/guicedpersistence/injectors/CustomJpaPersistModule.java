@@ -95,6 +95,11 @@ public final class CustomJpaPersistModule
 
 		bind(EntityManagerFactory.class).toProvider(provider);
 
+		BulkWriter.BulkWriterProvider bulkWriterProvider = new BulkWriter.BulkWriterProvider();
+		bulkWriterProvider.setEmProvider(persistService);
+
+		bind(BulkWriter.class).toProvider(bulkWriterProvider);
+
 		transactionInterceptor = new CustomJpaLocalTxnInterceptor();
 		requestInjection(transactionInterceptor);
 	}
@@ -17,20 +17,47 @@
 package com.guicedee.guicedpersistence.injectors;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.UnitOfWork;
+import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedpersistence.implementations.EntityIndex;
+import com.guicedee.guicedpersistence.implementations.PersistenceStartupReport;
+import com.guicedee.guicedpersistence.services.PersistenceServicesModule;
 import com.guicedee.logger.LogFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
 import java.lang.annotation.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Dhanji R. Prasanna (dhanji@gmail.com)
@@ -42,11 +69,15 @@ public class CustomJpaPersistService
 	 * Field log
 	 */
 	private static final Logger log = LogFactory.getLog("PersistService");
+	/**
+	 * The default fetch size and clear interval of streamed queries
+	 */
+	private static final int DEFAULT_STREAM_FETCH_SIZE = 500;
 
 	/**
-	 * Thread Local instances of Entity Managers
+	 * The carrier of the current entity manager and any suspended entity managers
 	 */
-	private final ThreadLocal<EntityManager> entityManager = new ThreadLocal<>();
+	private UnitOfWorkContext context = new ThreadLocalUnitOfWorkContext();
 	/**
 	 * The assigned persistence unit name
 	 */
@@ -63,6 +94,14 @@ public class CustomJpaPersistService
 	 * The service em factory
 	 */
 	private volatile EntityManagerFactory emFactory;
+	/**
+	 * If entity managers are created on first use, see {@link LazyEntityManager}
+	 */
+	private volatile boolean lazy;
+	/**
+	 * Completes once the entity manager factory is open
+	 */
+	private volatile CompletableFuture<EntityManagerFactory> readiness = new CompletableFuture<>();
 
 	public CustomJpaPersistService()
 	{
@@ -75,36 +114,42 @@ public class CustomJpaPersistService
 		this.persistenceUnitName = persistenceUnitName;
 		this.persistenceProperties = persistenceProperties;
 		this.annotation = annotation;
+		this.context = UnitOfWorkContext.fromProperties(persistenceProperties);
 	}
 
 	@Override
 	public EntityManager get()
 	{
-		if (!isWorking())
+		WorkUnit workUnit = context.get();
+		EntityManager em = workUnit == null ? null : workUnit.getEntityManager();
+		if (em != null)
 		{
-			begin();
+			return em;
 		}
 
-		EntityManager em = entityManager.get();
-		Preconditions.checkState(
-				null != em,
-				"Requested EntityManager outside work unit. "
-				+ "Try calling UnitOfWork.begin() first, or use a PersistFilter if you "
-				+ "are inside a servlet environment.");
-
-		em.setProperty("annotation", annotation);
+		begin();
+		em = context.get()
+		            .getEntityManager();
+		if (em == null)
+		{
+			throw new IllegalStateException("Requested EntityManager outside work unit. "
+			                                + "Try calling UnitOfWork.begin() first, or use a PersistFilter if you "
+			                                + "are inside a servlet environment.");
+		}
 		return em;
 	}
 
 	public boolean isWorking()
 	{
-		return entityManager.get() != null;
+		WorkUnit workUnit = context.get();
+		return workUnit != null && workUnit.getEntityManager() != null;
 	}
 
 	@Override
 	public void begin()
 	{
-		if (entityManager.get() != null)
+		WorkUnit workUnit = context.getOrCreate();
+		if (workUnit.getEntityManager() != null)
 		{
 			log.warning("Work already begun on this thread. Looks like you have called UnitOfWork.begin() twice"
 			            + " without a balancing call to end() in between.");
@@ -117,13 +162,16 @@ public class CustomJpaPersistService
 		{
 			start();
 		}
-		entityManager.set(emFactory.createEntityManager());
+		EntityManager em = lazy ? LazyEntityManager.create(emFactory) : emFactory.createEntityManager();
+		em.setProperty("annotation", annotation);
+		workUnit.setEntityManager(em);
 	}
 
 	@Override
 	public void end()
 	{
-		EntityManager em = entityManager.get();
+		WorkUnit workUnit = context.get();
+		EntityManager em = workUnit == null ? null : workUnit.getEntityManager();
 
 		// Let's not penalize users for calling end() multiple times.
 		if (null == em)
@@ -137,37 +185,326 @@ public class CustomJpaPersistService
 		}
 		finally
 		{
-			entityManager.remove();
+			workUnit.setEntityManager(null);
+			if (workUnit.isEmpty())
+			{
+				context.release(workUnit);
+			}
 		}
 	}
 
 	/**
-	 * Starts up the Entity Manager Factory
+	 * Removes the current entity manager from the unit of work without closing it, closing it becomes the callers responsibility
+	 *
+	 * @return The detached entity manager, or null if no work is in progress
 	 */
-	@Override
-	public void start()
+	public EntityManager detach()
 	{
-		if (emFactory != null && emFactory.isOpen())
+		WorkUnit workUnit = context.get();
+		EntityManager em = workUnit == null ? null : workUnit.getEntityManager();
+		if (em != null)
+		{
+			workUnit.setEntityManager(null);
+			if (workUnit.isEmpty())
+			{
+				context.release(workUnit);
+			}
+		}
+		return em;
+	}
+
+	/**
+	 * Detaches the current entity manager from the thread without closing it, so that a new unit of work can begin.
+	 * <p>
+	 * Every call must be balanced by a call to {@link #resume()} once the new unit of work has ended
+	 */
+	public void suspend()
+	{
+		WorkUnit workUnit = context.get();
+		if (workUnit == null || workUnit.getEntityManager() == null)
 		{
 			return;
 		}
+		workUnit.suspend();
+	}
+
+	/**
+	 * Re-attaches the most recently suspended entity manager to the thread
+	 */
+	public void resume()
+	{
+		WorkUnit workUnit = context.get();
+		if (workUnit == null || !workUnit.hasSuspended())
+		{
+			log.warning("Resume called on this thread without a suspended unit of work.");
+			return;
+		}
+		if (workUnit.getEntityManager() != null)
+		{
+			log.warning("Resuming a suspended unit of work while work is still in progress. The current work will be ended.");
+			end();
+		}
+		workUnit.resume();
+	}
+
+	/**
+	 * Runs the task in its own unit of work scope, anything the task leaves open is closed once it returns
+	 *
+	 * @param task
+	 * 		The task to run
+	 * @param <T>
+	 * 		The return type
+	 *
+	 * @return The result of the task
+	 */
+	public <T> T callInScope(Callable<T> task) throws Exception
+	{
+		return context.call(task);
+	}
+
+	/**
+	 * If the unit of work is carried by a scope, so whoever begins it must run inside {@link #callInScope(Callable)}
+	 *
+	 * @return If the context is scope bound
+	 */
+	public boolean isScopeBound()
+	{
+		return context.isScopeBound();
+	}
+
+	/**
+	 * Wraps a task for a child thread, it runs in its own unit of work scope, or joins the scope of the caller when the context
+	 * carries work units in scopes
+	 *
+	 * @param task
+	 * 		The task to hand over
+	 * @param <T>
+	 * 		The return type
+	 *
+	 * @return The wrapped task
+	 */
+	public <T> Callable<T> wrap(Callable<T> task)
+	{
+		return context.wrap(task);
+	}
+
+	/**
+	 * Streams the results of a query with a fetch size and clear interval of 500
+	 *
+	 * @param query
+	 * 		Creates the query from the entity manager
+	 * @param <T>
+	 * 		The result type
+	 *
+	 * @return A stream that must be closed
+	 *
+	 * @see #stream(Function, int, int)
+	 */
+	public <T> Stream<T> stream(Function<EntityManager, ? extends TypedQuery<T>> query)
+	{
+		return stream(query, DEFAULT_STREAM_FETCH_SIZE, DEFAULT_STREAM_FETCH_SIZE);
+	}
+
+	/**
+	 * Streams the results of a query through forward only scrollable results, without materialising the result list.
+	 * <p>
+	 * Entities are loaded read only and released every clear interval rows, so rows already consumed can be collected. When the
+	 * stream is called outside of a unit of work the stream owns a new one, which is cleared at each interval and ended along with
+	 * any read transaction it needed once the stream is closed. Inside a running unit of work only the streamed entities that were
+	 * not already managed are detached, so pending changes and entities held by the caller are kept. Use in a try-with-resources
+	 * block.
+	 *
+	 * @param query
+	 * 		Creates the query from the entity manager
+	 * @param fetchSize
+	 * 		The JDBC fetch size
+	 * @param clearInterval
+	 * 		The number of rows between releases of the streamed entities, 0 to never release
+	 * @param <T>
+	 * 		The result type
+	 *
+	 * @return A stream that must be closed
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Stream<T> stream(Function<EntityManager, ? extends TypedQuery<T>> query, int fetchSize, int clearInterval)
+	{
+		boolean startedWork = false;
+		if (!isWorking())
+		{
+			begin();
+			startedWork = true;
+		}
+		EntityManager em = get();
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		Transaction readTransaction = null;
+		ScrollableResults results = null;
 		try
 		{
-			CustomJpaPersistService.log.finer("Starting up Persist Service - " + persistenceUnitName);
-			if (null != persistenceProperties)
+			if (startedWork && !session.isTransactionInProgress() && !session.getTransactionCoordinator()
+			                                                                 .getTransactionCoordinatorBuilder()
+			                                                                 .isJta())
 			{
-				emFactory =
-						Persistence.createEntityManagerFactory(persistenceUnitName, persistenceProperties);
+				//Drivers only honour the fetch size with a cursor, which needs auto commit off
+				readTransaction = session.getTransaction();
+				readTransaction.begin();
 			}
-			else
+			results = query.apply(em)
+			               .unwrap(org.hibernate.query.Query.class)
+			               .setFetchSize(fetchSize)
+			               .setReadOnly(true)
+			               .scroll(ScrollMode.FORWARD_ONLY);
+		}
+		catch (RuntimeException e)
+		{
+			closeStream(null, readTransaction, startedWork);
+			throw e;
+		}
+
+		ScrollableResults scroll = results;
+		Transaction transaction = readTransaction;
+		boolean ownsWork = startedWork;
+		PersistenceContext persistenceContext = session.getPersistenceContext();
+		Set<Object> held = Collections.newSetFromMap(new IdentityHashMap<>());
+		if (!ownsWork && clearInterval > 0)
+		{
+			for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries())
+			{
+				held.add(entry.getKey());
+			}
+		}
+		Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL)
+		{
+			private long count;
+			private final List<Object> streamed = new ArrayList<>();
+
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action)
+			{
+				if (!scroll.next())
+				{
+					return false;
+				}
+				Object[] row = scroll.get();
+				if (!ownsWork && clearInterval > 0)
+				{
+					for (Object value : row)
+					{
+						if (value != null && !held.contains(value) && persistenceContext.isEntryFor(value))
+						{
+							streamed.add(value);
+						}
+					}
+				}
+				action.accept((T) (row.length == 1 ? row[0] : row));
+				count++;
+				if (clearInterval > 0 && count % clearInterval == 0)
+				{
+					if (ownsWork)
+					{
+						em.clear();
+					}
+					else
+					{
+						for (Object entity : streamed)
+						{
+							if (persistenceContext.isEntryFor(entity))
+							{
+								em.detach(entity);
+							}
+						}
+						streamed.clear();
+					}
+				}
+				return true;
+			}
+		};
+		AtomicBoolean closed = new AtomicBoolean();
+		return StreamSupport.stream(spliterator, false)
+		                    .onClose(() -> {
+			                    if (closed.compareAndSet(false, true))
+			                    {
+				                    closeStream(scroll, transaction, ownsWork);
+			                    }
+		                    });
+	}
+
+	/**
+	 * Releases everything a stream opened
+	 */
+	private void closeStream(ScrollableResults results, Transaction readTransaction, boolean startedWork)
+	{
+		try
+		{
+			if (results != null)
 			{
-				emFactory = Persistence.createEntityManagerFactory(persistenceUnitName);
+				results.close();
 			}
-			CustomJpaPersistService.log.finer("Persist Service Started - " + persistenceUnitName);
+			if (readTransaction != null && readTransaction.isActive())
+			{
+				readTransaction.rollback();
+			}
+		}
+		finally
+		{
+			if (startedWork)
+			{
+				end();
+			}
+		}
+	}
+
+	/**
+	 * Starts up the Entity Manager Factory
+	 * <p>
+	 * Concurrent callers wait for a single start, the readiness future completes once the factory is open
+	 */
+	@Override
+	public void start()
+	{
+		EntityManagerFactory factory = emFactory;
+		if (factory != null && factory.isOpen())
+		{
+			return;
 		}
-		catch (Throwable T)
+		synchronized (this)
 		{
-			CustomJpaPersistService.log.log(Level.SEVERE, "Unable to get entity factory : " + T.getMessage(), T);
+			factory = emFactory;
+			if (factory != null && factory.isOpen())
+			{
+				return;
+			}
+			try
+			{
+				CustomJpaPersistService.log.finer("Starting up Persist Service - " + persistenceUnitName);
+				PersistenceServicesModule.awaitDataSource(persistenceUnitName);
+				long start = System.nanoTime();
+				Map<Object, Object> properties = persistenceProperties == null ? new HashMap<>() : new HashMap<>(persistenceProperties);
+				if (EntityIndex.apply(getPersistenceUnit(), properties))
+				{
+					factory = Persistence.createEntityManagerFactory(persistenceUnitName, properties);
+				}
+				else if (null != persistenceProperties)
+				{
+					factory = Persistence.createEntityManagerFactory(persistenceUnitName, persistenceProperties);
+				}
+				else
+				{
+					factory = Persistence.createEntityManagerFactory(persistenceUnitName);
+				}
+				PersistenceStartupReport.record(persistenceUnitName, PersistenceStartupReport.Phase.ENTITY_MANAGER_FACTORY, System.nanoTime() - start);
+				BatchWindowListener.register(factory);
+				lazy = LazyEntityManager.isEnabled(factory, persistenceProperties);
+				emFactory = factory;
+				readiness.complete(factory);
+				CustomJpaPersistService.log.finer("Persist Service Started - " + persistenceUnitName);
+			}
+			catch (Throwable T)
+			{
+				CustomJpaPersistService.log.log(Level.SEVERE, "Unable to get entity factory : " + T.getMessage(), T);
+				CompletableFuture<EntityManagerFactory> failed = readiness;
+				readiness = new CompletableFuture<>();
+				failed.completeExceptionally(T);
+			}
 		}
 	}
 
@@ -175,20 +512,59 @@ public class CustomJpaPersistService
 	 * Stops the Entity Manager Factory
 	 */
 	@Override
-	public void stop()
+	public synchronized void stop()
 	{
 		if (emFactory == null || !emFactory.isOpen())
 		{
 			return;
 		}
 		emFactory.close();
+		if (readiness.isDone())
+		{
+			readiness = new CompletableFuture<>();
+		}
 		log.finer("Entity Manager Factory for " + persistenceUnitName + " has been closed on the current thread");
 	}
 
+	/**
+	 * Completes with the entity manager factory once it has started, or exceptionally if the start fails.
+	 * <p>
+	 * A failed or stopped factory is given a new future for the next start
+	 *
+	 * @return The readiness of the entity manager factory
+	 */
+	public CompletableFuture<EntityManagerFactory> getReadiness()
+	{
+		return readiness;
+	}
+
+	/**
+	 * The bound persistence unit, as parsed or read from the boot snapshot
+	 *
+	 * @return The persistence unit or null if it is not bound
+	 */
+	private ParsedPersistenceXmlDescriptor getPersistenceUnit()
+	{
+		if (annotation == null)
+		{
+			return null;
+		}
+		try
+		{
+			return GuiceContext.get(Key.get(ParsedPersistenceXmlDescriptor.class, annotation));
+		}
+		catch (Exception e)
+		{
+			log.log(Level.FINE, "No persistence unit bound for " + persistenceUnitName, e);
+			return null;
+		}
+	}
+
 	@VisibleForTesting
 	synchronized void start(EntityManagerFactory emFactory)
 	{
 		this.emFactory = emFactory;
+		readiness.complete(emFactory);
 	}
 
 	public String getPersistenceUnitName()
@@ -209,6 +585,17 @@ public class CustomJpaPersistService
 	public void setPersistenceProperties(Map<?, ?> persistenceProperties)
 	{
 		this.persistenceProperties = persistenceProperties;
+		this.context = UnitOfWorkContext.fromProperties(persistenceProperties);
+	}
+
+	public UnitOfWorkContext getContext()
+	{
+		return context;
+	}
+
+	public void setContext(UnitOfWorkContext context)
+	{
+		this.context = context;
 	}
 
 	public Class<? extends Annotation> getAnnotation()
@@ -261,11 +648,25 @@ public class CustomJpaPersistService
 			this.emProvider = emProvider;
 		}
 
+		/**
+		 * Returns the factory, starting it first when it is not open yet, as with on demand startup
+		 *
+		 * @return The open entity manager factory
+		 */
 		@Override
 		public EntityManagerFactory get()
 		{
-			assert null != emProvider.emFactory;
-			return emProvider.emFactory;
+			EntityManagerFactory factory = emProvider.emFactory;
+			if (factory == null || !factory.isOpen())
+			{
+				emProvider.start();
+				factory = emProvider.emFactory;
+				if (factory == null || !factory.isOpen())
+				{
+					throw new IllegalStateException("Entity manager factory for " + emProvider.persistenceUnitName + " could not be started");
+				}
+			}
+			return factory;
 		}
 
 
@@ -0,0 +1,22 @@
+package com.guicedee.guicedpersistence.injectors;
+
+/**
+ * Which exceptions thrown out of a transactional method are logged by the interceptor
+ * <p>
+ * ALL default
+ */
+public enum ExceptionLogMode
+{
+	/**
+	 * Log every exception thrown out of the transaction
+	 */
+	ALL,
+	/**
+	 * Only log exceptions that rolled the transaction back
+	 */
+	ROLLBACK_ONLY,
+	/**
+	 * Never log, the caller handles the exception
+	 */
+	NONE
+}
@@ -16,22 +16,41 @@
 
 package com.guicedee.guicedpersistence.injectors;
 
-import com.google.inject.Key;
-import com.google.inject.persist.UnitOfWork;
 import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedpersistence.db.annotations.Propagation;
 import com.guicedee.guicedpersistence.db.annotations.Transactional;
-import com.guicedee.guicedpersistence.scanners.PersistenceServiceLoadersBinder;
 import com.guicedee.guicedpersistence.services.ITransactionHandler;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.guicedpersistence.services.TransactionMetricsPublisher;
+import com.guicedee.guicedpersistence.services.TransactionOutcome;
 import com.guicedee.logger.LogFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TransactionRequiredException;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import com.google.inject.persist.PersistService;
+
 /**
  * @author Dhanji R. Prasanna (dhanji@gmail.com)
  */
@@ -39,64 +58,239 @@ import com.google.inject.persist.PersistService;
 public class GuicedPersistenceTxnInterceptor
 		implements MethodInterceptor
 {
+	private static final Logger log = LogFactory.getLog("GuicedPersistenceTxnIntercepter");
 	/**
-	 * Tracks if the unit of work was begun implicitly by this transaction.
+	 * Which exceptions thrown out of a transaction are logged
 	 */
-	private final ThreadLocal<Boolean> didWeStartWork = new ThreadLocal<>();
-	private static final Logger log = LogFactory.getLog("GuicedPersistenceTxnIntercepter");
+	private static ExceptionLogMode exceptionLogMode = ExceptionLogMode.ALL;
+	/**
+	 * The executor that commits or rolls back transactions of methods returning a completion stage
+	 */
+	private static Executor asyncCompletionExecutor = ForkJoinPool.commonPool();
+	/**
+	 * The resolved transaction plans for every intercepted method
+	 */
+	private final Map<Method, TransactionPlan> plans = new ConcurrentHashMap<>();
+	/**
+	 * The per unit handler lookup
+	 */
+	private volatile TransactionHandlerDispatchTable dispatchTable;
+	/**
+	 * The transaction metrics listeners
+	 */
+	private volatile TransactionMetricsPublisher metricsPublisher;
 
 	public GuicedPersistenceTxnInterceptor()
 	{
 		//No config required
 	}
 
+	/**
+	 * Creates an interceptor using the given handler lookup and metrics listeners
+	 *
+	 * @param dispatchTable
+	 * 		The dispatch table built for the injector
+	 * @param metricsPublisher
+	 * 		The metrics listeners loaded for the injector
+	 */
+	public GuicedPersistenceTxnInterceptor(TransactionHandlerDispatchTable dispatchTable, TransactionMetricsPublisher metricsPublisher)
+	{
+		this.dispatchTable = dispatchTable;
+		this.metricsPublisher = metricsPublisher;
+	}
+
+	/**
+	 * Which exceptions thrown out of a transaction are logged
+	 *
+	 * @return The current mode, default ALL
+	 */
+	public static ExceptionLogMode getExceptionLogMode()
+	{
+		return exceptionLogMode;
+	}
+
+	/**
+	 * Which exceptions thrown out of a transaction are logged.
+	 * <p>
+	 * Use ROLLBACK_ONLY when exceptions are a normal control path, such as validation failures that still commit
+	 *
+	 * @param exceptionLogMode
+	 * 		default ALL
+	 */
+	public static void setExceptionLogMode(ExceptionLogMode exceptionLogMode)
+	{
+		GuicedPersistenceTxnInterceptor.exceptionLogMode = exceptionLogMode;
+	}
+
+	/**
+	 * The executor that commits or rolls back transactions of methods returning a completion stage
+	 *
+	 * @return The executor, default the common fork join pool
+	 */
+	public static Executor getAsyncCompletionExecutor()
+	{
+		return asyncCompletionExecutor;
+	}
+
+	/**
+	 * The executor that commits or rolls back transactions of methods returning a completion stage
+	 *
+	 * @param asyncCompletionExecutor
+	 * 		default the common fork join pool
+	 */
+	public static void setAsyncCompletionExecutor(Executor asyncCompletionExecutor)
+	{
+		GuicedPersistenceTxnInterceptor.asyncCompletionExecutor = asyncCompletionExecutor;
+	}
+
 	@Override
-	@SuppressWarnings("Duplicates")
 	public Object invoke(MethodInvocation methodInvocation) throws Throwable
 	{
-		Transactional transactional = readTransactionMetadata(methodInvocation);
+		return invoke(methodInvocation, getPlan(methodInvocation));
+	}
 
-		CustomJpaPersistService emProvider = GuiceContext.get(Key.get(CustomJpaPersistService.class, transactional.entityManagerAnnotation()));
-		UnitOfWork unitOfWork = GuiceContext.get(Key.get(UnitOfWork.class, transactional.entityManagerAnnotation()));
-		ParsedPersistenceXmlDescriptor unit = GuiceContext.get(Key.get(ParsedPersistenceXmlDescriptor.class, transactional.entityManagerAnnotation()));
+	/**
+	 * Runs an invocation with a plan that was built for it
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 *
+	 * @return The result of the invocation
+	 */
+	Object invoke(MethodInvocation methodInvocation, TransactionPlan plan) throws Throwable
+	{
+		CustomJpaPersistService persistService = plan.getPersistService();
+		if (persistService.isScopeBound() && !persistService.isWorking())
+		{
+			return persistService.callInScope(() -> {
+				try
+				{
+					return invokePropagation(methodInvocation, plan);
+				}
+				catch (Exception | Error e)
+				{
+					throw e;
+				}
+				catch (Throwable T)
+				{
+					throw new UndeclaredThrowableException(T);
+				}
+			});
+		}
+		return invokePropagation(methodInvocation, plan);
+	}
 
+	/**
+	 * Runs the invocation as the propagation of the plan requires
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 *
+	 * @return The result of the invocation
+	 */
+	private Object invokePropagation(MethodInvocation methodInvocation, TransactionPlan plan) throws Throwable
+	{
+		switch (plan.getPropagation())
+		{
+			case REQUIRES_NEW:
+			{
+				return invokeSuspended(methodInvocation, plan, true);
+			}
+			case NOT_SUPPORTED:
+			{
+				return invokeSuspended(methodInvocation, plan, false);
+			}
+			default:
+			{
+				if (!plan.getPersistService()
+				         .isWorking())
+				{
+					return invokeWithRetry(methodInvocation, plan);
+				}
+				return invokeInTransaction(methodInvocation, plan);
+			}
+		}
+	}
+
+	/**
+	 * Runs the invocation in the current unit of work, joining, nesting or starting a transaction as the propagation requires
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 *
+	 * @return The result of the invocation
+	 */
+	@SuppressWarnings("Duplicates")
+	private Object invokeInTransaction(MethodInvocation methodInvocation, TransactionPlan plan) throws Throwable
+	{
+		CustomJpaPersistService emProvider = plan.getPersistService();
+		boolean startedWork = false;
 		if (!emProvider.isWorking())
 		{
 			emProvider.begin();
-			didWeStartWork.set(true);
+			startedWork = true;
 		}
-		boolean startedWork = didWeStartWork.get() == null ? false : didWeStartWork.get();
 		EntityManager em = emProvider.get();
 
-		boolean transactionAlreadyStarted = false;
-        ITransactionHandler<?> handle = null;
+		ParsedPersistenceXmlDescriptor unit = plan.getUnit();
 		//active for automation handling, enabled for interception handling
-		for (ITransactionHandler<?> handler : GuiceContext.get(PersistenceServiceLoadersBinder.ITransactionHandlerReader))
+		ITransactionHandler<?> handle = getDispatchTable().getEnabledHandler(unit);
+		if (handle == null)
 		{
-			if (handler.enabled(unit))
-			{
-				handle = handler;
-				break;
-			}
-		}
-		if (handle == null) {
 			log.log(Level.WARNING, "No transaction handler found");
-			return methodInvocation.proceed();
+			return proceedInWork(methodInvocation, plan, startedWork);
 		}
 
+		Propagation propagation = plan.getPropagation();
 		if (handle.transactionExists(em, unit))
 		{
-			transactionAlreadyStarted = true;
+			if (propagation == Propagation.NESTED && !startedWork)
+			{
+				return invokeNested(methodInvocation, plan, em, unit);
+			}
+			return proceedInWork(methodInvocation, plan, startedWork);
 		}
-
-		if (!startedWork && transactionAlreadyStarted)
+		if (propagation == Propagation.MANDATORY)
 		{
-			return methodInvocation.proceed();
+			if (startedWork)
+			{
+				plan.getUnitOfWork()
+				    .end();
+			}
+			throw new TransactionRequiredException("No transaction is running for @" + plan.getQualifier()
+			                                                                             .getSimpleName() + " and one is mandatory");
+		}
+		if (propagation == Propagation.SUPPORTS)
+		{
+			return proceedInWork(methodInvocation, plan, startedWork);
 		}
 
-        handle.setTransactionTimeout(transactional.timeout(),em,unit);
-        handle.beginTransacation(false, em, unit);
-        startedWork = true;
+		TransactionMetricsPublisher metrics = getMetricsPublisher();
+		boolean recording = metrics.isRecording();
+		long started = recording ? System.nanoTime() : 0L;
+		handle.setTransactionTimeout(plan.getTimeout(), em, unit);
+		if (plan.isReadOnly())
+		{
+			LazyEntityManager.configure(em, session -> {
+				session.setDefaultReadOnly(true);
+				session.setHibernateFlushMode(FlushMode.MANUAL);
+			});
+		}
+		if (plan.getBatchSize() > 0)
+		{
+			LazyEntityManager.configure(em, session -> {
+				session.setJdbcBatchSize(plan.getBatchSize());
+				BatchWindowListener.open(session, plan.getBatchSize());
+			});
+		}
+		handle.beginTransacation(false, plan.isReadOnly(), em, unit);
+		long begun = recording ? System.nanoTime() : 0L;
 
 		Object result;
 		try
@@ -105,43 +299,476 @@ public class GuicedPersistenceTxnInterceptor
 		}
 		catch (Exception e)
 		{
-			if (rollbackIfNecessary(transactional, e,handle, unit, em))
+			long bodyEnded = recording ? System.nanoTime() : 0L;
+			boolean committed = rollbackIfNecessary(plan, e, handle, unit, em);
+			if (committed)
 			{
-                if(handle.transactionExists(em,unit)) {
-                    handle.commitTransacation(false, em, unit);
-                }
+				if (handle.transactionExists(em, unit))
+				{
+					handle.commitTransacation(false, plan.isReadOnly(), em, unit);
+				}
 			}
-
-			if (startedWork)
+			if (recording)
+			{
+				metrics.publish(plan.getMethod(), plan.getQualifier(), committed ? TransactionOutcome.COMMITTED : TransactionOutcome.ROLLED_BACK,
+				                started, begun, bodyEnded, System.nanoTime());
+			}
+			closeBatchWindow(plan, em);
+			plan.getUnitOfWork()
+			    .end();
+			if (exceptionLogMode == ExceptionLogMode.ALL || (exceptionLogMode == ExceptionLogMode.ROLLBACK_ONLY && !committed))
 			{
-				didWeStartWork.remove();
-				unitOfWork.end();
+				log.log(Level.SEVERE, "Unable to commit : ", e);
 			}
-			log.log(Level.SEVERE, "Unable to commit : ", e);
 			throw e;
 		}
+		if (startedWork && plan.isAsync() && result instanceof CompletionStage)
+		{
+			return completeAsync(plan, handle, em, unit, (CompletionStage<?>) result, recording, started, begun);
+		}
+		long bodyEnded = recording ? System.nanoTime() : 0L;
+		TransactionOutcome outcome = TransactionOutcome.FAILED;
 		try
 		{
-            if(handle.transactionExists(em,unit)) {
-                handle.commitTransacation(false, em, unit);
-            }
+			if (handle.transactionExists(em, unit))
+			{
+				handle.commitTransacation(false, plan.isReadOnly(), em, unit);
+				outcome = TransactionOutcome.COMMITTED;
+			}
+			else
+			{
+				outcome = TransactionOutcome.ROLLED_BACK;
+			}
 		}
 		finally
 		{
-			if (startedWork)
+			if (recording)
+			{
+				metrics.publish(plan.getMethod(), plan.getQualifier(), outcome, started, begun, bodyEnded, System.nanoTime());
+			}
+			closeBatchWindow(plan, em);
+			if (em != null && em.isOpen())
+			{
+				em.clear();
+				em.close();
+			}
+			plan.getUnitOfWork()
+			    .end();
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the flush windows of a batching transaction
+	 *
+	 * @param plan
+	 * 		The transaction plan of the method
+	 * @param em
+	 * 		The entity manager of the transaction
+	 */
+	private void closeBatchWindow(TransactionPlan plan, EntityManager em)
+	{
+		if (plan.getBatchSize() > 0 && em != null && em.isOpen() && LazyEntityManager.isMaterialized(em))
+		{
+			BatchWindowListener.close(em.unwrap(Session.class));
+		}
+	}
+
+	/**
+	 * Runs a unit of work owned by this invocation, running it again with a fresh entity manager after a retriable failure
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 *
+	 * @return The result of the invocation
+	 */
+	private Object invokeWithRetry(MethodInvocation methodInvocation, TransactionPlan plan) throws Throwable
+	{
+		RetryRules retryRules = plan.getRetryRules();
+		if (!retryRules.isEnabled() || plan.isAsync())
+		{
+			return invokeInTransaction(methodInvocation, plan);
+		}
+		int attempt = 0;
+		while (true)
+		{
+			try
+			{
+				return invokeInTransaction(methodInvocation, plan);
+			}
+			catch (Exception e)
+			{
+				if (attempt >= retryRules.getMaxRetries() || !retryRules.isRetriable(e))
+				{
+					throw e;
+				}
+				attempt++;
+				long delay = retryRules.delayFor(attempt);
+				log.log(Level.FINE, "Retrying transaction for [" + methodInvocation.getMethod()
+				                                                                   .getName() + "] attempt " + attempt + " in " + delay + "ms", e);
+				if (delay > 0)
+				{
+					try
+					{
+						Thread.sleep(delay);
+					}
+					catch (InterruptedException interrupted)
+					{
+						Thread.currentThread()
+						      .interrupt();
+						e.addSuppressed(interrupted);
+						throw e;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands the transaction over to the returned completion stage, it is committed or rolled back on the async completion
+	 * executor once the stage completes.
+	 * <p>
+	 * The entity manager is detached from the calling thread, stages that need it must capture it before the method returns
+	 *
+	 * @param plan
+	 * 		The transaction plan of the method
+	 * @param handle
+	 * 		The handler that began the transaction
+	 * @param em
+	 * 		The entity manager of the transaction
+	 * @param unit
+	 * 		The associated persistence unit
+	 * @param stage
+	 * 		The stage returned from the method
+	 * @param recording
+	 * 		If metrics are being recorded
+	 * @param started
+	 * 		When the transaction began to start
+	 * @param begun
+	 * 		When the transaction had begun
+	 *
+	 * @return A future that completes with the stage once the transaction has completed
+	 */
+	private CompletableFuture<Object> completeAsync(TransactionPlan plan, ITransactionHandler<?> handle, EntityManager em,
+	                                                ParsedPersistenceXmlDescriptor unit, CompletionStage<?> stage, boolean recording, long started,
+	                                                long begun)
+	{
+		Object suspendedTransaction = handle.suspendTransaction(em, unit);
+		plan.getPersistService()
+		    .detach();
+
+		CompletableFuture<Object> completion = new CompletableFuture<>();
+		stage.whenCompleteAsync((value, failure) -> {
+			long bodyEnded = recording ? System.nanoTime() : 0L;
+			Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+			TransactionOutcome outcome = TransactionOutcome.FAILED;
+			try
+			{
+				if (suspendedTransaction != null)
+				{
+					handle.resumeTransaction(suspendedTransaction, em, unit);
+				}
+				boolean commit = cause == null || (cause instanceof Exception && !plan.getRollbackRules()
+				                                                                     .requiresRollback(cause));
+				if (handle.transactionExists(em, unit))
+				{
+					if (commit)
+					{
+						handle.commitTransacation(false, plan.isReadOnly(), em, unit);
+					}
+					else
+					{
+						handle.rollbackTransacation(false, plan.isReadOnly(), em, unit);
+					}
+				}
+				outcome = commit ? TransactionOutcome.COMMITTED : TransactionOutcome.ROLLED_BACK;
+				if (cause == null)
+				{
+					completion.complete(value);
+				}
+				else
+				{
+					if (exceptionLogMode == ExceptionLogMode.ALL || (exceptionLogMode == ExceptionLogMode.ROLLBACK_ONLY && !commit))
+					{
+						log.log(Level.SEVERE, "Unable to commit : ", cause);
+					}
+					completion.completeExceptionally(failure);
+				}
+			}
+			catch (Throwable T)
+			{
+				if (cause != null)
+				{
+					T.addSuppressed(cause);
+				}
+				log.log(Level.SEVERE, "Unable to complete the asynchronous transaction : ", T);
+				completion.completeExceptionally(T);
+			}
+			finally
 			{
-				if(em != null && em.isOpen())
+				if (recording)
+				{
+					getMetricsPublisher().publish(plan.getMethod(), plan.getQualifier(), outcome, started, begun, bodyEnded, System.nanoTime());
+				}
+				closeBatchWindow(plan, em);
+				if (em.isOpen())
 				{
 					em.clear();
 					em.close();
 				}
-				didWeStartWork.remove();
-				unitOfWork.end();
 			}
+		}, asyncCompletionExecutor);
+		return completion;
+	}
+
+	/**
+	 * Suspends any running unit of work and transaction, and runs the invocation in a new entity manager
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 * @param transactional
+	 * 		If the new entity manager must run in a new transaction
+	 *
+	 * @return The result of the invocation
+	 */
+	private Object invokeSuspended(MethodInvocation methodInvocation, TransactionPlan plan, boolean transactional) throws Throwable
+	{
+		CustomJpaPersistService emProvider = plan.getPersistService();
+		ParsedPersistenceXmlDescriptor unit = plan.getUnit();
+		ITransactionHandler<?> handle = getDispatchTable().getEnabledHandler(unit);
+
+		EntityManager suspendedEm = null;
+		Object suspendedTransaction = null;
+		if (emProvider.isWorking())
+		{
+			suspendedEm = emProvider.get();
+			if (handle != null && handle.transactionExists(suspendedEm, unit))
+			{
+				suspendedTransaction = handle.suspendTransaction(suspendedEm, unit);
+			}
+			emProvider.suspend();
+		}
+		try
+		{
+			if (transactional)
+			{
+				return invokeWithRetry(methodInvocation, plan);
+			}
+			emProvider.begin();
+			return proceedInWork(methodInvocation, plan, true);
+		}
+		finally
+		{
+			if (suspendedEm != null)
+			{
+				emProvider.resume();
+				if (suspendedTransaction != null)
+				{
+					handle.resumeTransaction(suspendedTransaction, suspendedEm, unit);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the invocation inside a savepoint of the running transaction.
+	 * <p>
+	 * On a rollback to the savepoint the persistence context is brought back in line with the database, entities that became managed
+	 * inside the section are detached and entities whose changes were flushed inside it are refreshed.
+	 * <p>
+	 * Falls back to joining the transaction when the connection does not support savepoints
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 * @param em
+	 * 		The entity manager of the running transaction
+	 * @param unit
+	 * 		The associated persistence unit
+	 *
+	 * @return The result of the invocation
+	 */
+	private Object invokeNested(MethodInvocation methodInvocation, TransactionPlan plan, EntityManager em, ParsedPersistenceXmlDescriptor unit) throws Throwable
+	{
+		em.flush();
+		Session session = em.unwrap(Session.class);
+		Map<Object, Object[]> managed = managedState(session);
+		Savepoint savepoint;
+		try
+		{
+			savepoint = session.doReturningWork(Connection::setSavepoint);
+		}
+		catch (RuntimeException e)
+		{
+			log.log(Level.FINE, "Savepoints are not available for [" + unit.getName() + "], joining the running transaction", e);
+			return methodInvocation.proceed();
+		}
+
+		Object result;
+		try
+		{
+			result = methodInvocation.proceed();
+		}
+		catch (Exception e)
+		{
+			if (plan.getRollbackRules()
+			        .requiresRollback(e))
+			{
+				try
+				{
+					em.flush();
+				}
+				catch (RuntimeException flushException)
+				{
+					e.addSuppressed(flushException);
+				}
+				session.doWork(connection -> connection.rollback(savepoint));
+				restoreManaged(session, managed);
+			}
+			else
+			{
+				session.doWork(connection -> connection.releaseSavepoint(savepoint));
+			}
+			throw e;
 		}
+		em.flush();
+		session.doWork(connection -> connection.releaseSavepoint(savepoint));
 		return result;
 	}
 
+	/**
+	 * Captures the entities in the persistence context with the state they were last loaded or flushed with
+	 *
+	 * @param session
+	 * 		The session
+	 *
+	 * @return The loaded state of every managed entity by identity
+	 */
+	private static Map<Object, Object[]> managedState(Session session)
+	{
+		Map<Object, Object[]> managed = new IdentityHashMap<>();
+		for (Map.Entry<Object, EntityEntry> entry : session.unwrap(SessionImplementor.class)
+		                                                   .getPersistenceContext()
+		                                                   .reentrantSafeEntityEntries())
+		{
+			managed.put(entry.getKey(), entry.getValue()
+			                                 .getLoadedState());
+		}
+		return managed;
+	}
+
+	/**
+	 * Detaches the entities that became managed since the state was captured, and refreshes those flushed since from the database
+	 *
+	 * @param session
+	 * 		The session
+	 * @param managed
+	 * 		The state captured before the savepoint
+	 */
+	private static void restoreManaged(Session session, Map<Object, Object[]> managed)
+	{
+		List<Object> added = new ArrayList<>();
+		List<Object> flushed = new ArrayList<>();
+		for (Map.Entry<Object, EntityEntry> entry : session.unwrap(SessionImplementor.class)
+		                                                   .getPersistenceContext()
+		                                                   .reentrantSafeEntityEntries())
+		{
+			if (!managed.containsKey(entry.getKey()))
+			{
+				added.add(entry.getKey());
+			}
+			else if (managed.get(entry.getKey()) != entry.getValue()
+			                                             .getLoadedState())
+			{
+				flushed.add(entry.getKey());
+			}
+		}
+		for (Object entity : added)
+		{
+			if (session.contains(entity))
+			{
+				session.evict(entity);
+			}
+		}
+		for (Object entity : flushed)
+		{
+			if (session.contains(entity))
+			{
+				session.refresh(entity);
+			}
+		}
+	}
+
+	/**
+	 * Runs the invocation without managing a transaction, ending the unit of work afterwards if it was started here
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 * @param plan
+	 * 		The transaction plan of the method
+	 * @param startedWork
+	 * 		If the unit of work was begun for this invocation
+	 *
+	 * @return The result of the invocation
+	 */
+	private Object proceedInWork(MethodInvocation methodInvocation, TransactionPlan plan, boolean startedWork) throws Throwable
+	{
+		try
+		{
+			return methodInvocation.proceed();
+		}
+		finally
+		{
+			if (startedWork)
+			{
+				plan.getUnitOfWork()
+				    .end();
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached plan for the invoked method, building it on first use
+	 *
+	 * @param methodInvocation
+	 * 		The invocation
+	 *
+	 * @return The transaction plan
+	 */
+	private TransactionPlan getPlan(MethodInvocation methodInvocation)
+	{
+		Method method = methodInvocation.getMethod();
+		TransactionPlan plan = plans.get(method);
+		if (plan == null)
+		{
+			plan = plans.computeIfAbsent(method, m -> TransactionPlan.build(m, readTransactionMetadata(methodInvocation)));
+		}
+		return plan;
+	}
+
+	private TransactionMetricsPublisher getMetricsPublisher()
+	{
+		if (metricsPublisher == null)
+		{
+			metricsPublisher = GuiceContext.get(TransactionMetricsPublisher.class);
+		}
+		return metricsPublisher;
+	}
+
+	private TransactionHandlerDispatchTable getDispatchTable()
+	{
+		if (dispatchTable == null)
+		{
+			dispatchTable = GuiceContext.get(TransactionHandlerDispatchTable.class);
+		}
+		return dispatchTable;
+	}
+
 	/**
 	 * Method readTransactionMetadata ...
 	 *
@@ -168,9 +795,12 @@ public class GuicedPersistenceTxnInterceptor
 
 	/**
 	 * Returns True if rollback DID NOT HAPPEN (i.e. if commit should continue).
+	 * <p>
+	 * A retriable failure of a method that retries always rolls back, whatever the rollback rules, so a retry never repeats
+	 * committed work
 	 *
-	 * @param transactional
-	 * 		The metadata annotation of the method
+	 * @param plan
+	 * 		The transaction plan of the method
 	 * @param e
 	 * 		The exception to test for rollback
 	 * @param em
@@ -178,34 +808,15 @@ public class GuicedPersistenceTxnInterceptor
 	 * @param unit
 	 * 		The associated persistence unit
 	 */
-	@SuppressWarnings("Duplicates")
-	private boolean rollbackIfNecessary(Transactional transactional, Exception e,ITransactionHandler<?> handle, ParsedPersistenceXmlDescriptor unit, EntityManager em)
+	private boolean rollbackIfNecessary(TransactionPlan plan, Exception e, ITransactionHandler<?> handle, ParsedPersistenceXmlDescriptor unit, EntityManager em)
 	{
-		boolean commit = true;
-
-		for (Class<? extends Exception> rollBackOn : transactional.rollbackOn())
+		RetryRules retryRules = plan.getRetryRules();
+		if (plan.getRollbackRules()
+		        .requiresRollback(e) || (retryRules.isEnabled() && retryRules.isRetriable(e)))
 		{
-			if (rollBackOn.isInstance(e))
-			{
-				commit = false;
-
-				for (Class<? extends Exception> exceptOn : transactional.ignore())
-				{
-					if (exceptOn.isInstance(e))
-					{
-						commit = true;
-						break;
-					}
-				}
-
-				if (!commit)
-				{
-                    handle.rollbackTransacation(false, em, unit);
-				}
-				break;
-			}
+			handle.rollbackTransacation(false, plan.isReadOnly(), em, unit);
+			return false;
 		}
-
-		return commit;
+		return true;
 	}
 }
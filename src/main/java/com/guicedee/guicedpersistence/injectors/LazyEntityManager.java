@@ -0,0 +1,357 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.transaction.spi.TransactionCoordinatorBuilder;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.RollbackException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An entity manager that is only created on first use, so units of work that never reach the database never open a session or
+ * check out a connection
+ * <p>
+ * Until then properties are recorded, and a transaction begun through {@link EntityManager#getTransaction()} is only marked as
+ * begun. Session settings handed to {@link #configure(EntityManager, Consumer)} are queued with the begin and replayed in order once
+ * the entity manager is created. A transaction that ends before then completes without touching the database.
+ * <p>
+ * Enabled for resource local units with the property {@value #LAZY_PROPERTY}, JTA units always create their entity manager
+ * eagerly so it joins the running transaction. Like the entity manager itself, it is confined to one thread at a time.
+ */
+public final class LazyEntityManager
+		implements InvocationHandler
+{
+	/**
+	 * The persistence unit property that enables lazy entity managers
+	 */
+	public static final String LAZY_PROPERTY = "guicedpersistence.lazy";
+
+	/**
+	 * The factory that creates the entity manager
+	 */
+	private final EntityManagerFactory factory;
+	/**
+	 * The properties set before the entity manager was created
+	 */
+	private final Map<String, Object> properties = new LinkedHashMap<>();
+	/**
+	 * The settings and transaction begin to replay once the entity manager is created
+	 */
+	private final List<Consumer<EntityManager>> pending = new ArrayList<>();
+	/**
+	 * The transaction handed out before the entity manager is created
+	 */
+	private final DeferredTransaction transaction = new DeferredTransaction();
+	/**
+	 * The created entity manager
+	 */
+	private EntityManager delegate;
+	/**
+	 * If the entity manager was closed before it was created
+	 */
+	private boolean closed;
+
+	private LazyEntityManager(EntityManagerFactory factory)
+	{
+		this.factory = factory;
+	}
+
+	/**
+	 * Creates an entity manager that is only created from the factory on first use
+	 *
+	 * @param factory
+	 * 		The entity manager factory
+	 *
+	 * @return The lazy entity manager
+	 */
+	public static EntityManager create(EntityManagerFactory factory)
+	{
+		return (EntityManager) Proxy.newProxyInstance(LazyEntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class},
+		                                              new LazyEntityManager(factory));
+	}
+
+	/**
+	 * If lazy entity managers are enabled in the properties and the factory does not run in JTA transactions
+	 *
+	 * @param factory
+	 * 		The started entity manager factory
+	 * @param properties
+	 * 		The persistence unit properties, may be null
+	 *
+	 * @return If entity managers of the factory can be created lazily
+	 */
+	public static boolean isEnabled(EntityManagerFactory factory, Map<?, ?> properties)
+	{
+		Object lazy = properties == null ? null : properties.get(LAZY_PROPERTY);
+		if (lazy == null || !Boolean.parseBoolean(lazy.toString()
+		                                              .trim()))
+		{
+			return false;
+		}
+		return !factory.unwrap(SessionFactoryImplementor.class)
+		               .getServiceRegistry()
+		               .getService(TransactionCoordinatorBuilder.class)
+		               .isJta();
+	}
+
+	/**
+	 * If the entity manager exists, always true for entity managers that are not lazy
+	 *
+	 * @param entityManager
+	 * 		The entity manager
+	 *
+	 * @return If the entity manager has been created
+	 */
+	public static boolean isMaterialized(EntityManager entityManager)
+	{
+		LazyEntityManager lazy = handlerOf(entityManager);
+		return lazy == null || lazy.delegate != null;
+	}
+
+	/**
+	 * Applies a setting to the session of the entity manager, queuing it until the entity manager is created
+	 *
+	 * @param entityManager
+	 * 		The entity manager
+	 * @param setting
+	 * 		The setting to apply
+	 */
+	public static void configure(EntityManager entityManager, Consumer<Session> setting)
+	{
+		LazyEntityManager lazy = handlerOf(entityManager);
+		if (lazy != null && lazy.delegate == null)
+		{
+			lazy.pending.add(em -> setting.accept(em.unwrap(Session.class)));
+		}
+		else
+		{
+			setting.accept(entityManager.unwrap(Session.class));
+		}
+	}
+
+	private static LazyEntityManager handlerOf(EntityManager entityManager)
+	{
+		if (entityManager != null && Proxy.isProxyClass(entityManager.getClass()))
+		{
+			InvocationHandler handler = Proxy.getInvocationHandler(entityManager);
+			if (handler instanceof LazyEntityManager)
+			{
+				return (LazyEntityManager) handler;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		String name = method.getName();
+		if (method.getDeclaringClass() == Object.class)
+		{
+			switch (name)
+			{
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					return "LazyEntityManager[" + (delegate == null ? "pending" : delegate.toString()) + "]";
+			}
+		}
+		if (delegate == null)
+		{
+			if ("isOpen".equals(name))
+			{
+				return !closed;
+			}
+			if ("close".equals(name))
+			{
+				closed = true;
+				pending.clear();
+				return null;
+			}
+			if (closed)
+			{
+				throw new IllegalStateException("Session/EntityManager is closed");
+			}
+			switch (name)
+			{
+				case "setProperty":
+				{
+					properties.put((String) args[0], args[1]);
+					return null;
+				}
+				case "clear":
+				{
+					return null;
+				}
+				case "getTransaction":
+				{
+					return transaction;
+				}
+				case "getEntityManagerFactory":
+				{
+					return factory;
+				}
+				case "getCriteriaBuilder":
+				{
+					return factory.getCriteriaBuilder();
+				}
+				case "getMetamodel":
+				{
+					return factory.getMetamodel();
+				}
+				default:
+				{
+					materialize();
+				}
+			}
+		}
+		try
+		{
+			return method.invoke(delegate, args);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Creates the entity manager and replays the recorded properties, settings and transaction begin
+	 */
+	private void materialize()
+	{
+		delegate = factory.createEntityManager();
+		properties.forEach(delegate::setProperty);
+		List<Consumer<EntityManager>> actions = new ArrayList<>(pending);
+		pending.clear();
+		for (Consumer<EntityManager> action : actions)
+		{
+			action.accept(delegate);
+		}
+	}
+
+	/**
+	 * The transaction of an entity manager that has not been created yet, delegating to the real transaction once it is
+	 */
+	private final class DeferredTransaction
+			implements EntityTransaction
+	{
+		private boolean begun;
+		private boolean rollbackOnly;
+
+		@Override
+		public void begin()
+		{
+			if (delegate != null)
+			{
+				delegate.getTransaction()
+				        .begin();
+				return;
+			}
+			if (begun)
+			{
+				throw new IllegalStateException("Transaction already active");
+			}
+			begun = true;
+			pending.add(em -> em.getTransaction()
+			                    .begin());
+		}
+
+		@Override
+		public void commit()
+		{
+			if (delegate != null)
+			{
+				delegate.getTransaction()
+				        .commit();
+				return;
+			}
+			checkBegun();
+			boolean markedRollback = rollbackOnly;
+			complete();
+			if (markedRollback)
+			{
+				throw new RollbackException("Transaction was marked for rollback only");
+			}
+		}
+
+		@Override
+		public void rollback()
+		{
+			if (delegate != null)
+			{
+				delegate.getTransaction()
+				        .rollback();
+				return;
+			}
+			checkBegun();
+			complete();
+		}
+
+		@Override
+		public void setRollbackOnly()
+		{
+			if (delegate != null)
+			{
+				delegate.getTransaction()
+				        .setRollbackOnly();
+				return;
+			}
+			checkBegun();
+			rollbackOnly = true;
+		}
+
+		@Override
+		public boolean getRollbackOnly()
+		{
+			if (delegate != null)
+			{
+				return delegate.getTransaction()
+				               .getRollbackOnly();
+			}
+			return rollbackOnly;
+		}
+
+		@Override
+		public boolean isActive()
+		{
+			if (delegate != null)
+			{
+				return delegate.getTransaction()
+				               .isActive();
+			}
+			return begun;
+		}
+
+		private void checkBegun()
+		{
+			if (!begun)
+			{
+				throw new IllegalStateException("Transaction not successfully started");
+			}
+		}
+
+		/**
+		 * Ends a transaction that never reached the database, dropping the settings queued for it
+		 */
+		private void complete()
+		{
+			begun = false;
+			rollbackOnly = false;
+			pending.clear();
+		}
+	}
+}
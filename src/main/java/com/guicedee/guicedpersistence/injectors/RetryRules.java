@@ -0,0 +1,123 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The compiled retry policy of a transactional method.
+ * <p>
+ * A failure is retriable when anywhere in its cause chain there is an optimistic lock or lock timeout failure, a deadlock or
+ * serialization SQLState (class 40, or 61000), or one of the configured retryOn types
+ */
+final class RetryRules
+{
+	/**
+	 * The longest cause chain that is inspected
+	 */
+	private static final int MAX_CAUSE_DEPTH = 32;
+
+	/**
+	 * The number of retries allowed
+	 */
+	private final int maxRetries;
+	/**
+	 * Additional retriable types
+	 */
+	private final Class<? extends Exception>[] retryOn;
+	/**
+	 * The base delay
+	 */
+	private final long backoff;
+	/**
+	 * The largest delay
+	 */
+	private final long backoffMax;
+
+	RetryRules(int maxRetries, Class<? extends Exception>[] retryOn, long backoff, long backoffMax)
+	{
+		this.maxRetries = Math.max(0, maxRetries);
+		this.retryOn = retryOn;
+		this.backoff = Math.max(0, backoff);
+		this.backoffMax = Math.max(this.backoff, backoffMax);
+	}
+
+	/**
+	 * If any retries are configured
+	 */
+	boolean isEnabled()
+	{
+		return maxRetries > 0;
+	}
+
+	int getMaxRetries()
+	{
+		return maxRetries;
+	}
+
+	/**
+	 * Returns true if the failure is worth running the unit of work again for
+	 *
+	 * @param e
+	 * 		The failure of the attempt
+	 */
+	boolean isRetriable(Throwable e)
+	{
+		Throwable current = e;
+		for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++)
+		{
+			if (current instanceof OptimisticLockException || current instanceof LockTimeoutException)
+			{
+				return true;
+			}
+			for (Class<? extends Exception> type : retryOn)
+			{
+				if (type.isInstance(current))
+				{
+					return true;
+				}
+			}
+			if (current instanceof SQLException && isRetriableState(((SQLException) current).getSQLState()))
+			{
+				return true;
+			}
+			if (current.getCause() == current)
+			{
+				break;
+			}
+			current = current.getCause();
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the delay before the given retry, exponential with full jitter
+	 *
+	 * @param attempt
+	 * 		The retry number starting at 1
+	 *
+	 * @return The delay in milliseconds
+	 */
+	long delayFor(int attempt)
+	{
+		if (backoff == 0)
+		{
+			return 0;
+		}
+		int shift = Math.min(attempt - 1, 30);
+		long ceiling = backoff << shift;
+		if (ceiling <= 0 || ceiling > backoffMax)
+		{
+			ceiling = backoffMax;
+		}
+		return ThreadLocalRandom.current()
+		                        .nextLong(ceiling + 1);
+	}
+
+	private static boolean isRetriableState(String sqlState)
+	{
+		//40 - transaction rollback (serialization failure, deadlock), 61000 - oracle deadlock
+		return sqlState != null && (sqlState.startsWith("40") || "61000".equals(sqlState));
+	}
+}
@@ -0,0 +1,87 @@
+package com.guicedee.guicedpersistence.injectors;
+
+/**
+ * The compiled rollbackOn and ignore rules of a transactional method.
+ * <p>
+ * The decision only depends on the exception type, so it is calculated once per thrown class and cached
+ */
+final class RollbackRules
+{
+	/**
+	 * The outcome for an exception type
+	 */
+	enum Decision
+	{
+		ROLLBACK,
+		COMMIT
+	}
+
+	/**
+	 * Exceptions that mark a rollback
+	 */
+	private final Class<? extends Exception>[] rollbackOn;
+	/**
+	 * Exceptions excluded from the roll back
+	 */
+	private final Class<? extends Exception>[] ignore;
+	/**
+	 * The cached decision for every thrown type
+	 */
+	private final ClassValue<Decision> decisions = new ClassValue<>()
+	{
+		@Override
+		protected Decision computeValue(Class<?> type)
+		{
+			return decide(type);
+		}
+	};
+
+	RollbackRules(Class<? extends Exception>[] rollbackOn, Class<? extends Exception>[] ignore)
+	{
+		this.rollbackOn = rollbackOn;
+		this.ignore = ignore;
+	}
+
+	/**
+	 * Returns the decision for the thrown exception
+	 *
+	 * @param e
+	 * 		The exception thrown by the transactional method
+	 *
+	 * @return ROLLBACK or COMMIT
+	 */
+	Decision decisionFor(Throwable e)
+	{
+		return decisions.get(e.getClass());
+	}
+
+	/**
+	 * Returns true if the thrown exception must roll back the transaction
+	 *
+	 * @param e
+	 * 		The exception thrown by the transactional method
+	 */
+	boolean requiresRollback(Throwable e)
+	{
+		return decisionFor(e) == Decision.ROLLBACK;
+	}
+
+	private Decision decide(Class<?> type)
+	{
+		for (Class<? extends Exception> rollBackOn : rollbackOn)
+		{
+			if (rollBackOn.isAssignableFrom(type))
+			{
+				for (Class<? extends Exception> exceptOn : ignore)
+				{
+					if (exceptOn.isAssignableFrom(type))
+					{
+						return Decision.COMMIT;
+					}
+				}
+				return Decision.ROLLBACK;
+			}
+		}
+		return Decision.COMMIT;
+	}
+}
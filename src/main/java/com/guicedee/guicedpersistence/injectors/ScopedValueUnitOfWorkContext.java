@@ -0,0 +1,246 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.guicedee.logger.LogFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A context carrier that binds the work unit to a {@code java.lang.ScopedValue} on Java 21 and later, rather than to the thread
+ * <p>
+ * The interceptors open a scope whenever they begin a unit of work, so nothing is held by the thread and nothing outlives the scope.
+ * Whatever a scope leaves open is closed on exit. Subtasks forked in a StructuredTaskScope inside a scope, and tasks handed over
+ * with {@link #wrap(Callable)}, join the work unit of the scope that created them and leave its ownership with that scope. The
+ * entity manager is not thread safe, so the parent must wait for such tasks rather than use it alongside them.
+ * <p>
+ * Work begun outside of any scope, with UnitOfWork.begin(), is held by the thread for that unit of work only and released as soon
+ * as it ends.
+ * <p>
+ * ScopedValue is called through method handles so the library still runs on older releases. On Java 21 to 24 it is a preview API
+ * and may need --enable-preview, {@link #isAvailable()} is false when it cannot be used.
+ */
+public class ScopedValueUnitOfWorkContext
+		implements UnitOfWorkContext
+{
+	/**
+	 * Field log
+	 */
+	private static final Logger log = LogFactory.getLog("ScopedValueUnitOfWorkContext");
+	/**
+	 * ScopedValue.newInstance()
+	 */
+	private static final MethodHandle newInstance;
+	/**
+	 * ScopedValue.isBound()
+	 */
+	private static final MethodHandle isBound;
+	/**
+	 * ScopedValue.get()
+	 */
+	private static final MethodHandle get;
+	/**
+	 * ScopedValue.where(ScopedValue, Object)
+	 */
+	private static final MethodHandle where;
+	/**
+	 * ScopedValue.Carrier.run(Runnable)
+	 */
+	private static final MethodHandle run;
+
+	static
+	{
+		MethodHandle newInstanceHandle = null;
+		MethodHandle isBoundHandle = null;
+		MethodHandle getHandle = null;
+		MethodHandle whereHandle = null;
+		MethodHandle runHandle = null;
+		try
+		{
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+			Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+			newInstanceHandle = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue));
+			isBoundHandle = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class));
+			getHandle = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class));
+			whereHandle = lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class));
+			runHandle = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class));
+			//Preview APIs refuse to run without --enable-preview
+			Object probe = newInstanceHandle.invoke();
+			whereHandle.invoke(probe, new Object());
+		}
+		catch (Throwable T)
+		{
+			log.log(Level.FINE, "ScopedValue is not available, scoped unit of work contexts fall back to the thread", T);
+			newInstanceHandle = null;
+		}
+		newInstance = newInstanceHandle;
+		isBound = isBoundHandle;
+		get = getHandle;
+		where = whereHandle;
+		run = runHandle;
+	}
+
+	/**
+	 * The ScopedValue holding the work unit of the innermost open scope
+	 */
+	private final Object scope;
+	/**
+	 * Holds work begun outside of any scope
+	 */
+	private final ThreadLocalUnitOfWorkContext unscoped = new ThreadLocalUnitOfWorkContext();
+
+	/**
+	 * Creates a new scoped context, check {@link #isAvailable()} first
+	 *
+	 * @throws UnsupportedOperationException
+	 * 		if ScopedValue is not available in this runtime
+	 */
+	public ScopedValueUnitOfWorkContext()
+	{
+		if (!isAvailable())
+		{
+			throw new UnsupportedOperationException("ScopedValue is not available, use Java 21 or later with --enable-preview, or Java 25 or later");
+		}
+		try
+		{
+			scope = newInstance.invoke();
+		}
+		catch (Throwable T)
+		{
+			throw new IllegalStateException("Unable to create the ScopedValue", T);
+		}
+	}
+
+	/**
+	 * If this runtime provides ScopedValue
+	 *
+	 * @return If a scoped context can be created
+	 */
+	public static boolean isAvailable()
+	{
+		return newInstance != null;
+	}
+
+	@Override
+	public WorkUnit get()
+	{
+		WorkUnit unit = bound();
+		return unit != null ? unit : unscoped.get();
+	}
+
+	@Override
+	public WorkUnit getOrCreate()
+	{
+		WorkUnit unit = bound();
+		return unit != null ? unit : unscoped.getOrCreate();
+	}
+
+	@Override
+	public void release(WorkUnit unit)
+	{
+		if (!unit.isScoped())
+		{
+			unscoped.release(unit);
+		}
+	}
+
+	@Override
+	public boolean isScopeBound()
+	{
+		return true;
+	}
+
+	@Override
+	public <T> T call(Callable<T> task) throws Exception
+	{
+		WorkUnit unit = new WorkUnit(true);
+		try
+		{
+			return callBound(unit, task);
+		}
+		finally
+		{
+			int leaked = unit.closeAll();
+			if (leaked > 0)
+			{
+				log.warning("Closed " + leaked + " entity manager(s) left open at the end of a unit of work scope");
+			}
+		}
+	}
+
+	/**
+	 * Wraps a task so that it joins the work unit of the current scope, or runs in a scope of its own when none is open
+	 *
+	 * @param task
+	 * 		The task to hand to a child thread
+	 * @param <T>
+	 * 		The return type
+	 *
+	 * @return A task that runs in the unit of work of the caller
+	 */
+	@Override
+	public <T> Callable<T> wrap(Callable<T> task)
+	{
+		WorkUnit parent = bound();
+		if (parent == null)
+		{
+			return () -> call(task);
+		}
+		return () -> callBound(parent, task);
+	}
+
+	private WorkUnit bound()
+	{
+		try
+		{
+			return (boolean) isBound.invoke(scope) ? (WorkUnit) get.invoke(scope) : null;
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable T)
+		{
+			throw new IllegalStateException(T);
+		}
+	}
+
+	private <T> T callBound(WorkUnit unit, Callable<T> task) throws Exception
+	{
+		Object[] result = new Object[1];
+		Exception[] failure = new Exception[1];
+		Runnable body = () -> {
+			try
+			{
+				result[0] = task.call();
+			}
+			catch (Exception e)
+			{
+				failure[0] = e;
+			}
+		};
+		try
+		{
+			run.invoke(where.invoke(scope, unit), body);
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable T)
+		{
+			throw new IllegalStateException(T);
+		}
+		if (failure[0] != null)
+		{
+			throw failure[0];
+		}
+		@SuppressWarnings("unchecked")
+		T value = (T) result[0];
+		return value;
+	}
+}
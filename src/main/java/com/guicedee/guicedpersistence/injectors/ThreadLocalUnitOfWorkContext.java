@@ -0,0 +1,81 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.guicedee.logger.LogFactory;
+
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+/**
+ * The default context carrier, the work unit is bound to the thread until the unit of work ends
+ * <p>
+ * A scope opened with {@link #call(Callable)} closes whatever it leaves open on exit, so no entity manager can stay behind on a
+ * pooled or carrier thread. Child tasks are handed their own scope through {@link #wrap(Callable)}.
+ */
+public class ThreadLocalUnitOfWorkContext
+		implements UnitOfWorkContext
+{
+	/**
+	 * Field log
+	 */
+	private static final Logger log = LogFactory.getLog("ThreadLocalUnitOfWorkContext");
+
+	/**
+	 * Thread Local work units
+	 */
+	private final ThreadLocal<WorkUnit> workUnit = new ThreadLocal<>();
+
+	@Override
+	public WorkUnit get()
+	{
+		return workUnit.get();
+	}
+
+	@Override
+	public WorkUnit getOrCreate()
+	{
+		WorkUnit unit = workUnit.get();
+		if (unit == null)
+		{
+			unit = new WorkUnit();
+			workUnit.set(unit);
+		}
+		return unit;
+	}
+
+	@Override
+	public void release(WorkUnit unit)
+	{
+		if (!unit.isScoped())
+		{
+			workUnit.remove();
+		}
+	}
+
+	@Override
+	public <T> T call(Callable<T> task) throws Exception
+	{
+		WorkUnit previous = workUnit.get();
+		WorkUnit unit = new WorkUnit(true);
+		workUnit.set(unit);
+		try
+		{
+			return task.call();
+		}
+		finally
+		{
+			int leaked = unit.closeAll();
+			if (leaked > 0)
+			{
+				log.warning("Closed " + leaked + " entity manager(s) left open at the end of a unit of work scope");
+			}
+			if (previous == null)
+			{
+				workUnit.remove();
+			}
+			else
+			{
+				workUnit.set(previous);
+			}
+		}
+	}
+}
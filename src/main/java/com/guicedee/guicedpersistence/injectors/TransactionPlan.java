@@ -0,0 +1,200 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.google.inject.Key;
+import com.google.inject.persist.UnitOfWork;
+import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedpersistence.db.annotations.Propagation;
+import com.guicedee.guicedpersistence.db.annotations.Transactional;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An immutable, pre-resolved description of how a single {@link Transactional} method must be executed.
+ * <p>
+ * Built once per intercepted method so that the steady state invocation performs no reflection and no injector lookups
+ */
+final class TransactionPlan
+{
+	/**
+	 * The intercepted method
+	 */
+	private final Method method;
+	/**
+	 * The annotation the plan was built from
+	 */
+	private final Transactional transactional;
+	/**
+	 * The qualifier of the entity manager
+	 */
+	private final Class<? extends Annotation> qualifier;
+	/**
+	 * The persist service for the qualifier
+	 */
+	private final CustomJpaPersistService persistService;
+	/**
+	 * The unit of work for the qualifier
+	 */
+	private final UnitOfWork unitOfWork;
+	/**
+	 * The persistence unit descriptor for the qualifier
+	 */
+	private final ParsedPersistenceXmlDescriptor unit;
+	/**
+	 * The timeout to apply
+	 */
+	private final int timeout;
+	/**
+	 * How the method joins a running transaction
+	 */
+	private final Propagation propagation;
+	/**
+	 * If the transaction is read only
+	 */
+	private final boolean readOnly;
+	/**
+	 * The JDBC batch size and flush window of the transaction, 0 when not batching
+	 */
+	private final int batchSize;
+	/**
+	 * The compiled rollbackOn and ignore rules
+	 */
+	private final RollbackRules rollbackRules;
+	/**
+	 * If the method returns a completion stage that the transaction must wait for
+	 */
+	private final boolean async;
+	/**
+	 * The compiled retry policy
+	 */
+	private final RetryRules retryRules;
+
+	TransactionPlan(Method method, Transactional transactional, CustomJpaPersistService persistService, UnitOfWork unitOfWork,
+	                ParsedPersistenceXmlDescriptor unit)
+	{
+		this(method, transactional, transactional.entityManagerAnnotation(), persistService, unitOfWork, unit);
+	}
+
+	private TransactionPlan(Method method, Transactional transactional, Class<? extends Annotation> qualifier,
+	                        CustomJpaPersistService persistService, UnitOfWork unitOfWork, ParsedPersistenceXmlDescriptor unit)
+	{
+		this.method = method;
+		this.transactional = transactional;
+		this.qualifier = qualifier;
+		this.persistService = persistService;
+		this.unitOfWork = unitOfWork;
+		this.unit = unit;
+		this.timeout = transactional.timeout();
+		this.propagation = transactional.propagation();
+		this.readOnly = transactional.readOnly();
+		this.batchSize = Math.max(0, transactional.batchSize());
+		this.rollbackRules = new RollbackRules(transactional.rollbackOn(), transactional.ignore());
+		this.retryRules = new RetryRules(transactional.maxRetries(), transactional.retryOn(), transactional.retryBackoff(),
+		                                 transactional.retryBackoffMax());
+		Class<?> returnType = method.getReturnType();
+		this.async = CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class);
+	}
+
+	/**
+	 * Resolves everything required for the given annotation from the injector
+	 *
+	 * @param method
+	 * 		The intercepted method
+	 * @param transactional
+	 * 		The annotation found on the method
+	 *
+	 * @return The plan for the method
+	 */
+	static TransactionPlan build(Method method, Transactional transactional)
+	{
+		return build(method, transactional, transactional.entityManagerAnnotation());
+	}
+
+	/**
+	 * Resolves everything required for the given annotation from the injector, against another unit than the annotation names
+	 *
+	 * @param method
+	 * 		The intercepted method
+	 * @param transactional
+	 * 		The annotation found on the method
+	 * @param qualifier
+	 * 		The binding annotation of the unit to run against
+	 *
+	 * @return The plan for the method on the unit
+	 */
+	static TransactionPlan build(Method method, Transactional transactional, Class<? extends Annotation> qualifier)
+	{
+		CustomJpaPersistService persistService = GuiceContext.get(Key.get(CustomJpaPersistService.class, qualifier));
+		UnitOfWork unitOfWork = GuiceContext.get(Key.get(UnitOfWork.class, qualifier));
+		ParsedPersistenceXmlDescriptor unit = GuiceContext.get(Key.get(ParsedPersistenceXmlDescriptor.class, qualifier));
+		return new TransactionPlan(method, transactional, qualifier, persistService, unitOfWork, unit);
+	}
+
+	public Method getMethod()
+	{
+		return method;
+	}
+
+	public Transactional getTransactional()
+	{
+		return transactional;
+	}
+
+	public Class<? extends Annotation> getQualifier()
+	{
+		return qualifier;
+	}
+
+	public CustomJpaPersistService getPersistService()
+	{
+		return persistService;
+	}
+
+	public UnitOfWork getUnitOfWork()
+	{
+		return unitOfWork;
+	}
+
+	public ParsedPersistenceXmlDescriptor getUnit()
+	{
+		return unit;
+	}
+
+	public int getTimeout()
+	{
+		return timeout;
+	}
+
+	public Propagation getPropagation()
+	{
+		return propagation;
+	}
+
+	public boolean isReadOnly()
+	{
+		return readOnly;
+	}
+
+	public boolean isAsync()
+	{
+		return async;
+	}
+
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	public RetryRules getRetryRules()
+	{
+		return retryRules;
+	}
+
+	public RollbackRules getRollbackRules()
+	{
+		return rollbackRules;
+	}
+}
@@ -0,0 +1,117 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.google.inject.Key;
+import com.guicedee.guicedinjection.GuiceContext;
+import com.guicedee.guicedpersistence.db.annotations.Transactional;
+import org.aopalliance.intercept.MethodInvocation;
+
+import jakarta.persistence.EntityManager;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs work against a persistence unit in a read only transaction through {@link GuicedPersistenceTxnInterceptor}, for the
+ * training run
+ * <p>
+ * The transaction settings are read from the annotation of {@link #warmUp()}, with the entity manager annotation replaced by the
+ * unit being warmed up
+ */
+public final class TransactionWarmUp
+{
+	/**
+	 * The method carrying the transaction settings of a warm-up
+	 */
+	private static final Method warmUpMethod;
+
+	static
+	{
+		try
+		{
+			warmUpMethod = TransactionWarmUp.class.getDeclaredMethod("warmUp");
+		}
+		catch (NoSuchMethodException e)
+		{
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The interceptor the warm-ups run through
+	 */
+	private final GuicedPersistenceTxnInterceptor interceptor = new GuicedPersistenceTxnInterceptor();
+
+	/**
+	 * Runs the warm-up with the entity manager of the unit, in a read only transaction on that unit
+	 *
+	 * @param qualifier
+	 * 		The binding annotation of the unit
+	 * @param warmUp
+	 * 		The work to run with the entity manager of the unit
+	 *
+	 * @throws Throwable
+	 * 		Anything the warm-up or the transaction threw
+	 */
+	public void run(Class<? extends Annotation> qualifier, BiConsumer<Class<? extends Annotation>, EntityManager> warmUp) throws Throwable
+	{
+		TransactionPlan plan = TransactionPlan.build(warmUpMethod, warmUpMethod.getAnnotation(Transactional.class), qualifier);
+		interceptor.invoke(new WarmUpInvocation(qualifier, warmUp), plan);
+	}
+
+	/**
+	 * The transaction settings of a warm-up, the entity manager annotation is replaced per unit
+	 */
+	@Transactional(entityManagerAnnotation = Annotation.class, readOnly = true, timeout = 30)
+	private static void warmUp()
+	{
+		//Only carries the annotation
+	}
+
+	/**
+	 * The invocation the interceptor runs for a warm-up, it calls the warm-up with the entity manager of the unit
+	 */
+	private static final class WarmUpInvocation
+			implements MethodInvocation
+	{
+		private final Class<? extends Annotation> qualifier;
+		private final BiConsumer<Class<? extends Annotation>, EntityManager> warmUp;
+
+		private WarmUpInvocation(Class<? extends Annotation> qualifier, BiConsumer<Class<? extends Annotation>, EntityManager> warmUp)
+		{
+			this.qualifier = qualifier;
+			this.warmUp = warmUp;
+		}
+
+		@Override
+		public Method getMethod()
+		{
+			return warmUpMethod;
+		}
+
+		@Override
+		public Object[] getArguments()
+		{
+			return new Object[0];
+		}
+
+		@Override
+		public Object proceed()
+		{
+			warmUp.accept(qualifier, GuiceContext.get(Key.get(EntityManager.class, qualifier)));
+			return null;
+		}
+
+		@Override
+		public Object getThis()
+		{
+			return this;
+		}
+
+		@Override
+		public AccessibleObject getStaticPart()
+		{
+			return warmUpMethod;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.guicedee.logger.LogFactory;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Carries the {@link WorkUnit} of a persistence unit for the code that is currently running
+ * <p>
+ * Selected per persistence unit with the property {@value #CONTEXT_PROPERTY}, either {@code thread} (default) or {@code scoped}
+ * for {@link ScopedValueUnitOfWorkContext} on Java 21 and later. Another carrier can be set with
+ * {@link CustomJpaPersistService#setContext(UnitOfWorkContext)}.
+ */
+public interface UnitOfWorkContext
+{
+	/**
+	 * The persistence unit property that selects the context carrier
+	 */
+	String CONTEXT_PROPERTY = "guicedpersistence.context";
+
+	/**
+	 * Returns the work unit of the running code
+	 *
+	 * @return The work unit or null if none is held
+	 */
+	WorkUnit get();
+
+	/**
+	 * Returns the work unit of the running code, creating it if none is held
+	 *
+	 * @return The work unit, never null
+	 */
+	WorkUnit getOrCreate();
+
+	/**
+	 * Releases an empty work unit from the running code
+	 *
+	 * @param workUnit
+	 * 		The work unit returned from get
+	 */
+	void release(WorkUnit workUnit);
+
+	/**
+	 * Runs the task with its own work unit, closing anything the task leaves open once it returns
+	 *
+	 * @param task
+	 * 		The task to run
+	 * @param <T>
+	 * 		The return type
+	 *
+	 * @return The result of the task
+	 */
+	<T> T call(Callable<T> task) throws Exception;
+
+	/**
+	 * If work units are only carried inside a scope, so whoever begins a unit of work runs it inside {@link #call(Callable)}
+	 *
+	 * @return default false
+	 */
+	default boolean isScopeBound()
+	{
+		return false;
+	}
+
+	/**
+	 * Wraps a task so that it runs with its own work unit on whichever thread executes it
+	 *
+	 * @param task
+	 * 		The task to hand to a child thread
+	 * @param <T>
+	 * 		The return type
+	 *
+	 * @return A task that runs in its own unit of work
+	 */
+	default <T> Callable<T> wrap(Callable<T> task)
+	{
+		return () -> call(task);
+	}
+
+	/**
+	 * Creates the context carrier named in the persistence unit properties
+	 *
+	 * @param properties
+	 * 		The persistence unit properties, may be null
+	 *
+	 * @return The selected context carrier
+	 */
+	static UnitOfWorkContext fromProperties(Map<?, ?> properties)
+	{
+		Object type = properties == null ? null : properties.get(CONTEXT_PROPERTY);
+		if (type != null && "scoped".equalsIgnoreCase(type.toString()
+		                                                  .trim()))
+		{
+			if (ScopedValueUnitOfWorkContext.isAvailable())
+			{
+				return new ScopedValueUnitOfWorkContext();
+			}
+			LogFactory.getLog("UnitOfWorkContext")
+			          .warning("ScopedValue is not available in this runtime, " + CONTEXT_PROPERTY + "=scoped falls back to the thread");
+		}
+		return new ThreadLocalUnitOfWorkContext();
+	}
+}
@@ -0,0 +1,124 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The state of a unit of work for a persistence unit, the current entity manager and any entity managers suspended for a new one
+ * <p>
+ * A work unit is only ever touched by the thread, or scope, that owns it, and by tasks that scope has handed it to and waits for
+ */
+public final class WorkUnit
+{
+	/**
+	 * The current entity manager
+	 */
+	private EntityManager entityManager;
+	/**
+	 * The entity managers suspended for a new unit of work, created on first suspend
+	 */
+	private Deque<EntityManager> suspended;
+	/**
+	 * If the work unit belongs to an explicitly opened scope and must outlive the units of work inside it
+	 */
+	private final boolean scoped;
+
+	public WorkUnit()
+	{
+		this(false);
+	}
+
+	/**
+	 * Creates a work unit
+	 *
+	 * @param scoped
+	 * 		If the work unit belongs to an explicitly opened scope
+	 */
+	public WorkUnit(boolean scoped)
+	{
+		this.scoped = scoped;
+	}
+
+	public EntityManager getEntityManager()
+	{
+		return entityManager;
+	}
+
+	public void setEntityManager(EntityManager entityManager)
+	{
+		this.entityManager = entityManager;
+	}
+
+	public boolean isScoped()
+	{
+		return scoped;
+	}
+
+	/**
+	 * Moves the current entity manager onto the suspended stack
+	 */
+	void suspend()
+	{
+		if (suspended == null)
+		{
+			suspended = new ArrayDeque<>();
+		}
+		suspended.push(entityManager);
+		entityManager = null;
+	}
+
+	/**
+	 * If an entity manager was suspended and can be resumed
+	 */
+	boolean hasSuspended()
+	{
+		return suspended != null && !suspended.isEmpty();
+	}
+
+	/**
+	 * Makes the most recently suspended entity manager current again
+	 */
+	void resume()
+	{
+		entityManager = suspended.pop();
+	}
+
+	/**
+	 * If the work unit holds nothing and can be released from its context
+	 */
+	boolean isEmpty()
+	{
+		return entityManager == null && !hasSuspended();
+	}
+
+	/**
+	 * Closes every entity manager still held, used when a scope exits with work left open
+	 *
+	 * @return The number of entity managers that were closed
+	 */
+	int closeAll()
+	{
+		int closed = 0;
+		if (entityManager != null)
+		{
+			close(entityManager);
+			entityManager = null;
+			closed++;
+		}
+		while (hasSuspended())
+		{
+			close(suspended.pop());
+			closed++;
+		}
+		return closed;
+	}
+
+	private static void close(EntityManager em)
+	{
+		if (em.isOpen())
+		{
+			em.close();
+		}
+	}
+}
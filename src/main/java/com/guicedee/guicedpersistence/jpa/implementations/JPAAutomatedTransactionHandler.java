@@ -1,13 +1,21 @@
 package com.guicedee.guicedpersistence.jpa.implementations;
 
 
-import com.guicedee.guicedpersistence.btm.implementation.BTMAutomatedTransactionHandler;
+import com.guicedee.guicedpersistence.injectors.LazyEntityManager;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.logger.LogFactory;
+import org.hibernate.Session;
+import org.hibernate.TransactionException;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 
 import jakarta.persistence.EntityManager;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class JPAAutomatedTransactionHandler
         implements com.guicedee.guicedpersistence.services.ITransactionHandler<JPAAutomatedTransactionHandler> {
+    private static final Logger log = LogFactory.getLog("JPAAutomatedTransactionHandler");
     private static boolean active = false;
     private static boolean enabled = true;
 
@@ -32,7 +40,10 @@ public class JPAAutomatedTransactionHandler
     }
 
     public static void setEnabled(boolean enabled) {
-        JPAAutomatedTransactionHandler.enabled = enabled;
+        if (JPAAutomatedTransactionHandler.enabled != enabled) {
+            JPAAutomatedTransactionHandler.enabled = enabled;
+            TransactionHandlerDispatchTable.invalidate();
+        }
     }
 
     /**
@@ -41,7 +52,10 @@ public class JPAAutomatedTransactionHandler
      * @param active
      */
     public static void setActive(boolean active) {
-        JPAAutomatedTransactionHandler.active = active;
+        if (JPAAutomatedTransactionHandler.active != active) {
+            JPAAutomatedTransactionHandler.active = active;
+            TransactionHandlerDispatchTable.invalidate();
+        }
     }
 
     @Override
@@ -53,13 +67,110 @@ public class JPAAutomatedTransactionHandler
 
     @Override
     public void commitTransacation(boolean createNew, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        commit(entityManager, false);
+    }
+
+    private void commit(EntityManager entityManager, boolean readOnly) {
+        if (isTimedOut(entityManager)) {
+            entityManager.getTransaction()
+                    .setRollbackOnly();
+        }
+        if (readOnly) {
+            endReadOnly(entityManager, !entityManager.getTransaction()
+                    .getRollbackOnly());
+        }
         entityManager.getTransaction()
                 .commit();
     }
 
+    /**
+     * Begins the transaction and flags the connection read only for its duration
+     * <p>
+     * The session is expected to be in manual flush mode already, so nothing is flushed on commit. The flag is cleared before the
+     * transaction completes, so the connection goes back to the pool writable
+     */
+    @Override
+    public void beginTransacation(boolean createNew, boolean readOnly, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        beginTransacation(createNew, entityManager, persistenceUnit);
+        if (readOnly) {
+            LazyEntityManager.configure(entityManager, session -> session.doWork(connection -> connection.setReadOnly(true)));
+        }
+    }
+
+    @Override
+    public void commitTransacation(boolean createNew, boolean readOnly, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        commit(entityManager, readOnly);
+    }
+
+    @Override
+    public void rollbackTransacation(boolean createNew, boolean readOnly, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        if (readOnly) {
+            endReadOnly(entityManager, false);
+        }
+        rollbackTransacation(createNew, entityManager, persistenceUnit);
+    }
+
+    /**
+     * Ends the JDBC transaction and clears the read only flag while the transaction still holds the connection, Hibernate releases
+     * it as soon as its own transaction completes. Drivers refuse the change mid transaction, and nothing is written in a read only
+     * transaction, so the transaction Hibernate then completes is empty
+     *
+     * @param entityManager
+     * @param commit        If the JDBC transaction is committed rather than rolled back
+     */
+    private void endReadOnly(EntityManager entityManager, boolean commit) {
+        if (!LazyEntityManager.isMaterialized(entityManager) || !entityManager.getTransaction()
+                .isActive()) {
+            return;
+        }
+        try {
+            entityManager.unwrap(Session.class)
+                    .doWork(connection -> {
+                        if (commit) {
+                            connection.commit();
+                        } else {
+                            connection.rollback();
+                        }
+                        connection.setReadOnly(false);
+                    });
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Unable to reset the connection read only flag", e);
+        }
+    }
+
+    /**
+     * Sets the timeout on the Hibernate transaction before it begins, only when the method set one explicitly.
+     * <p>
+     * Hibernate applies the remaining time as the query timeout of every statement prepared in the transaction, and refuses new
+     * statements once the deadline has passed
+     */
     @Override
     public void setTransactionTimeout(int timeout, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
+        if (timeout > 0) {
+            LazyEntityManager.configure(entityManager, session -> session.getTransaction()
+                    .setTimeout(timeout));
+        }
+    }
 
+    /**
+     * Checks if the deadline of the running transaction has passed
+     *
+     * @param entityManager
+     * @return true if a timeout was set and has expired
+     */
+    private boolean isTimedOut(EntityManager entityManager) {
+        if (!LazyEntityManager.isMaterialized(entityManager)) {
+            return false;
+        }
+        try {
+            entityManager.unwrap(SessionImplementor.class)
+                    .getJdbcCoordinator()
+                    .determineRemainingTransactionTimeOutPeriod();
+            return false;
+        } catch (TransactionException e) {
+            log.log(Level.WARNING, "Transaction timeout expired, the transaction will be rolled back");
+            return true;
+        }
     }
 
     @Override
@@ -70,11 +181,8 @@ public class JPAAutomatedTransactionHandler
 
     @Override
     public boolean transactionExists(EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit) {
-        if (active)
-            return entityManager.getTransaction()
-                    .isActive();
-        else
-            return false;
+        return entityManager.getTransaction()
+                .isActive();
     }
 
     @Override
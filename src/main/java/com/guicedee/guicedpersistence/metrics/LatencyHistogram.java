@@ -0,0 +1,101 @@
+package com.guicedee.guicedpersistence.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram with power of two buckets from one microsecond to just over a minute.
+ * <p>
+ * Every bucket is a striped {@link LongAdder}, so concurrent recording does not contend on a single counter
+ */
+public final class LatencyHistogram
+{
+	/**
+	 * The number of bounded buckets, the last bound is one microsecond * 2^26 (about 67 seconds)
+	 */
+	static final int BOUNDED_BUCKETS = 27;
+	/**
+	 * The smallest bucket bound in nanoseconds
+	 */
+	private static final long FIRST_BOUND_NANOS = 1_000L;
+
+	/**
+	 * The bucket counts, the last bucket holds everything above the largest bound
+	 */
+	private final LongAdder[] buckets = new LongAdder[BOUNDED_BUCKETS + 1];
+	/**
+	 * The total of all recorded values in nanoseconds
+	 */
+	private final LongAdder sum = new LongAdder();
+
+	public LatencyHistogram()
+	{
+		for (int i = 0; i < buckets.length; i++)
+		{
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a duration
+	 *
+	 * @param nanos
+	 * 		The duration in nanoseconds
+	 */
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+		{
+			nanos = 0;
+		}
+		buckets[indexFor(nanos)].increment();
+		sum.add(nanos);
+	}
+
+	/**
+	 * Returns the upper bound of a bounded bucket
+	 *
+	 * @param index
+	 * 		The bucket index below BOUNDED_BUCKETS
+	 *
+	 * @return The bound in nanoseconds
+	 */
+	static long boundNanos(int index)
+	{
+		return FIRST_BOUND_NANOS << index;
+	}
+
+	/**
+	 * Returns the current count of every bucket, not cumulative
+	 *
+	 * @return The counts, the last entry is the overflow bucket
+	 */
+	public long[] counts()
+	{
+		long[] counts = new long[buckets.length];
+		for (int i = 0; i < buckets.length; i++)
+		{
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the total of all recorded values
+	 *
+	 * @return The sum in nanoseconds
+	 */
+	public long sumNanos()
+	{
+		return sum.sum();
+	}
+
+	private static int indexFor(long nanos)
+	{
+		if (nanos <= FIRST_BOUND_NANOS)
+		{
+			return 0;
+		}
+		int index = 64 - Long.numberOfLeadingZeros((nanos - 1) / FIRST_BOUND_NANOS);
+		return Math.min(index, BOUNDED_BUCKETS);
+	}
+}
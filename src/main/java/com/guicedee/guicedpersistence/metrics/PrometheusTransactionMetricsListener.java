@@ -0,0 +1,236 @@
+package com.guicedee.guicedpersistence.metrics;
+
+import com.guicedee.guicedpersistence.services.ITransactionMetricsListener;
+import com.guicedee.guicedpersistence.services.TransactionOutcome;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The built in metrics listener, keeps latency histograms and outcome counts per method and qualifier and renders them in the
+ * Prometheus text exposition format.
+ * <p>
+ * Disabled by default, enable with {@link #setEnabled(boolean)}
+ */
+public class PrometheusTransactionMetricsListener
+		implements ITransactionMetricsListener<PrometheusTransactionMetricsListener>
+{
+	/**
+	 * The metric name prefix
+	 */
+	private static final String PREFIX = "guicedpersistence_transaction_";
+	/**
+	 * If recording is enabled
+	 */
+	private static boolean enabled = false;
+	/**
+	 * The recorded metrics by method and qualifier
+	 */
+	private static final Map<Method, Map<Class<? extends Annotation>, TransactionMetrics>> metrics = new ConcurrentHashMap<>();
+
+	public PrometheusTransactionMetricsListener()
+	{
+		//No config required
+	}
+
+	@Override
+	public boolean enabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * If recording is enabled
+	 *
+	 * @return default false
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * If recording is enabled
+	 *
+	 * @param enabled
+	 * 		default false
+	 */
+	public static void setEnabled(boolean enabled)
+	{
+		PrometheusTransactionMetricsListener.enabled = enabled;
+	}
+
+	@Override
+	public void onTransaction(Method method, Class<? extends Annotation> qualifier, TransactionOutcome outcome, long beginNanos, long bodyNanos, long completionNanos)
+	{
+		getMetrics(method, qualifier).record(outcome, beginNanos, bodyNanos, completionNanos);
+	}
+
+	/**
+	 * Returns the recorded metrics for a method and qualifier, creating them if none are recorded yet
+	 *
+	 * @param method
+	 * 		The transactional method
+	 * @param qualifier
+	 * 		The entity manager annotation
+	 *
+	 * @return The metrics, never null
+	 */
+	public static TransactionMetrics getMetrics(Method method, Class<? extends Annotation> qualifier)
+	{
+		Map<Class<? extends Annotation>, TransactionMetrics> byQualifier = metrics.get(method);
+		if (byQualifier == null)
+		{
+			byQualifier = metrics.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+		}
+		TransactionMetrics found = byQualifier.get(qualifier);
+		if (found == null)
+		{
+			found = byQualifier.computeIfAbsent(qualifier, q -> new TransactionMetrics());
+		}
+		return found;
+	}
+
+	/**
+	 * Clears all recorded metrics
+	 */
+	public static void reset()
+	{
+		metrics.clear();
+	}
+
+	/**
+	 * Renders the current metrics in the Prometheus text exposition format
+	 *
+	 * @return The snapshot
+	 */
+	public static String snapshot()
+	{
+		StringBuilder out = new StringBuilder();
+		writeHistogramHeader(out, "begin_seconds", "Time taken to begin the transaction");
+		metrics.forEach((method, byQualifier) -> byQualifier.forEach(
+				(qualifier, recorded) -> writeHistogram(out, "begin_seconds", labels(method, qualifier), recorded.getBegin())));
+		writeHistogramHeader(out, "body_seconds", "Time taken by the transactional method body");
+		metrics.forEach((method, byQualifier) -> byQualifier.forEach(
+				(qualifier, recorded) -> writeHistogram(out, "body_seconds", labels(method, qualifier), recorded.getBody())));
+		writeHistogramHeader(out, "completion_seconds", "Time taken to commit or roll back the transaction");
+		metrics.forEach((method, byQualifier) -> byQualifier.forEach(
+				(qualifier, recorded) -> writeHistogram(out, "completion_seconds", labels(method, qualifier), recorded.getCompletion())));
+
+		out.append("# HELP ")
+		   .append(PREFIX)
+		   .append("total Transactions by outcome\n");
+		out.append("# TYPE ")
+		   .append(PREFIX)
+		   .append("total counter\n");
+		metrics.forEach((method, byQualifier) -> byQualifier.forEach((qualifier, recorded) -> {
+			String labels = labels(method, qualifier);
+			for (TransactionOutcome outcome : TransactionOutcome.values())
+			{
+				out.append(PREFIX)
+				   .append("total{")
+				   .append(labels)
+				   .append(",outcome=\"")
+				   .append(outcome.name()
+				                  .toLowerCase(Locale.ROOT))
+				   .append("\"} ")
+				   .append(recorded.getCount(outcome))
+				   .append('\n');
+			}
+		}));
+		return out.toString();
+	}
+
+	/**
+	 * Writes the current snapshot to a file, replacing it atomically where the file system allows
+	 *
+	 * @param file
+	 * 		The file to write
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be written
+	 */
+	public static void writeSnapshot(Path file) throws IOException
+	{
+		Path absolute = file.toAbsolutePath();
+		Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+		Files.write(temp, snapshot().getBytes(StandardCharsets.UTF_8));
+		Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void writeHistogramHeader(StringBuilder out, String name, String help)
+	{
+		out.append("# HELP ")
+		   .append(PREFIX)
+		   .append(name)
+		   .append(' ')
+		   .append(help)
+		   .append('\n');
+		out.append("# TYPE ")
+		   .append(PREFIX)
+		   .append(name)
+		   .append(" histogram\n");
+	}
+
+	private static void writeHistogram(StringBuilder out, String name, String labels, LatencyHistogram histogram)
+	{
+		long[] counts = histogram.counts();
+		long cumulative = 0;
+		for (int i = 0; i < LatencyHistogram.BOUNDED_BUCKETS; i++)
+		{
+			cumulative += counts[i];
+			out.append(PREFIX)
+			   .append(name)
+			   .append("_bucket{")
+			   .append(labels)
+			   .append(",le=\"")
+			   .append(LatencyHistogram.boundNanos(i) / 1e9)
+			   .append("\"} ")
+			   .append(cumulative)
+			   .append('\n');
+		}
+		cumulative += counts[LatencyHistogram.BOUNDED_BUCKETS];
+		out.append(PREFIX)
+		   .append(name)
+		   .append("_bucket{")
+		   .append(labels)
+		   .append(",le=\"+Inf\"} ")
+		   .append(cumulative)
+		   .append('\n');
+		out.append(PREFIX)
+		   .append(name)
+		   .append("_sum{")
+		   .append(labels)
+		   .append("} ")
+		   .append(histogram.sumNanos() / 1e9)
+		   .append('\n');
+		out.append(PREFIX)
+		   .append(name)
+		   .append("_count{")
+		   .append(labels)
+		   .append("} ")
+		   .append(cumulative)
+		   .append('\n');
+	}
+
+	private static String labels(Method method, Class<? extends Annotation> qualifier)
+	{
+		return "method=\"" + escape(method.getDeclaringClass()
+		                                  .getName() + "." + method.getName()) + "\",qualifier=\"" + escape(qualifier.getName()) + "\"";
+	}
+
+	private static String escape(String value)
+	{
+		return value.replace("\\", "\\\\")
+		            .replace("\"", "\\\"")
+		            .replace("\n", "\\n");
+	}
+}
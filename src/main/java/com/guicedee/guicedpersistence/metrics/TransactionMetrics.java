@@ -0,0 +1,70 @@
+package com.guicedee.guicedpersistence.metrics;
+
+import com.guicedee.guicedpersistence.services.TransactionOutcome;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The recorded timings and outcomes of a single transactional method and qualifier
+ */
+public final class TransactionMetrics
+{
+	/**
+	 * The time taken to begin
+	 */
+	private final LatencyHistogram begin = new LatencyHistogram();
+	/**
+	 * The time taken by the method body
+	 */
+	private final LatencyHistogram body = new LatencyHistogram();
+	/**
+	 * The time taken to commit or roll back
+	 */
+	private final LatencyHistogram completion = new LatencyHistogram();
+	/**
+	 * The count of each outcome
+	 */
+	private final LongAdder[] outcomes = new LongAdder[TransactionOutcome.values().length];
+
+	public TransactionMetrics()
+	{
+		for (int i = 0; i < outcomes.length; i++)
+		{
+			outcomes[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a completed transaction
+	 */
+	public void record(TransactionOutcome outcome, long beginNanos, long bodyNanos, long completionNanos)
+	{
+		begin.record(beginNanos);
+		body.record(bodyNanos);
+		completion.record(completionNanos);
+		outcomes[outcome.ordinal()].increment();
+	}
+
+	public LatencyHistogram getBegin()
+	{
+		return begin;
+	}
+
+	public LatencyHistogram getBody()
+	{
+		return body;
+	}
+
+	public LatencyHistogram getCompletion()
+	{
+		return completion;
+	}
+
+	/**
+	 * Returns the number of transactions that completed with the outcome
+	 */
+	public long getCount(TransactionOutcome outcome)
+	{
+		return outcomes[outcome.ordinal()].sum();
+	}
+}
@@ -2,7 +2,9 @@ package com.guicedee.guicedpersistence.readers.hibernateproperties;
 
 
 
+import com.guicedee.guicedpersistence.injectors.LazyEntityManager;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -87,6 +89,34 @@ public class HibernateEntityManagerProperties
 	 * Field useValidatorApplyToDDL
 	 */
 	private Boolean useValidatorApplyToDDL;
+	/**
+	 * The number of statements sent to the database in a single JDBC batch
+	 */
+	private Integer jdbcBatchSize;
+	/**
+	 * Orders inserts by entity so they can be batched
+	 */
+	private Boolean orderInserts;
+	/**
+	 * Orders updates by entity so they can be batched
+	 */
+	private Boolean orderUpdates;
+	/**
+	 * Batches updates of versioned entities, requires a driver that returns correct row counts for batches
+	 */
+	private Boolean batchVersionedData;
+	/**
+	 * When the physical connection is acquired and released
+	 */
+	private PhysicalConnectionHandlingMode connectionHandlingMode;
+	/**
+	 * Tells hibernate the pool hands out connections with auto commit disabled, so beginning a transaction needs no connection
+	 */
+	private Boolean providerDisablesAutocommit;
+	/**
+	 * Creates the entity manager of a resource local unit of work on first use
+	 */
+	private Boolean lazyEntityManager;
 
 	/**
 	 * Method getMaxFetchDepth returns the maxFetchDepth of this HibernateEntityManagerProperties object.
@@ -253,6 +283,34 @@ public class HibernateEntityManagerProperties
 		{
 			incomingProperties.put("hibernate.validator.apply_to_ddl", Boolean.toString(useValidatorApplyToDDL));
 		}
+		if (jdbcBatchSize != null)
+		{
+			incomingProperties.put("hibernate.jdbc.batch_size", Integer.toString(jdbcBatchSize));
+		}
+		if (orderInserts != null)
+		{
+			incomingProperties.put("hibernate.order_inserts", Boolean.toString(orderInserts));
+		}
+		if (orderUpdates != null)
+		{
+			incomingProperties.put("hibernate.order_updates", Boolean.toString(orderUpdates));
+		}
+		if (batchVersionedData != null)
+		{
+			incomingProperties.put("hibernate.jdbc.batch_versioned_data", Boolean.toString(batchVersionedData));
+		}
+		if (connectionHandlingMode != null)
+		{
+			incomingProperties.put("hibernate.connection.handling_mode", connectionHandlingMode.name());
+		}
+		if (providerDisablesAutocommit != null)
+		{
+			incomingProperties.put("hibernate.connection.provider_disables_autocommit", Boolean.toString(providerDisablesAutocommit));
+		}
+		if (lazyEntityManager != null)
+		{
+			incomingProperties.put(LazyEntityManager.LAZY_PROPERTY, Boolean.toString(lazyEntityManager));
+		}
 
 		return new HashMap<>();
 	}
@@ -307,6 +365,39 @@ public class HibernateEntityManagerProperties
 		useValidatorApplyToDDL = false;
 	}
 
+	/**
+	 * Sets the following properties
+	 * <p>
+	 * JDBC Batch Size : batchSize
+	 * Order Inserts : true
+	 * Order Updates : true
+	 * Batch Versioned Data : true
+	 *
+	 * @param batchSize
+	 * 		The number of statements per JDBC batch
+	 */
+	public void enableBatchWrites(int batchSize)
+	{
+		jdbcBatchSize = batchSize;
+		orderInserts = true;
+		orderUpdates = true;
+		batchVersionedData = true;
+	}
+
+	/**
+	 * Sets the following properties
+	 * <p>
+	 * Lazy Entity Manager : true
+	 * Connection Handling : Delayed acquisition, released after the transaction
+	 * <p>
+	 * Only set provider disables autocommit as well when the pool really hands out connections with auto commit off
+	 */
+	public void enableDeferredConnections()
+	{
+		lazyEntityManager = true;
+		connectionHandlingMode = PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION;
+	}
+
 	/**
 	 * Method getShowSql returns the showSql of this HibernateEntityManagerProperties object.
 	 * <p>
@@ -598,4 +689,179 @@ public class HibernateEntityManagerProperties
 	{
 		this.useValidatorApplyToDDL = useValidatorApplyToDDL;
 	}
+
+	/**
+	 * Method getJdbcBatchSize returns the jdbcBatchSize of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * The number of statements sent to the database in a single JDBC batch
+	 *
+	 * @return the jdbcBatchSize (type Integer) of this HibernateEntityManagerProperties object.
+	 */
+	public Integer getJdbcBatchSize()
+	{
+		return jdbcBatchSize;
+	}
+
+	/**
+	 * Method setJdbcBatchSize sets the jdbcBatchSize of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * The number of statements sent to the database in a single JDBC batch
+	 *
+	 * @param jdbcBatchSize
+	 * 		the jdbcBatchSize of this HibernateEntityManagerProperties object.
+	 */
+	public void setJdbcBatchSize(Integer jdbcBatchSize)
+	{
+		this.jdbcBatchSize = jdbcBatchSize;
+	}
+
+	/**
+	 * Method getOrderInserts returns the orderInserts of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Orders inserts by entity so they can be batched
+	 *
+	 * @return the orderInserts (type Boolean) of this HibernateEntityManagerProperties object.
+	 */
+	public Boolean getOrderInserts()
+	{
+		return orderInserts;
+	}
+
+	/**
+	 * Method setOrderInserts sets the orderInserts of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Orders inserts by entity so they can be batched
+	 *
+	 * @param orderInserts
+	 * 		the orderInserts of this HibernateEntityManagerProperties object.
+	 */
+	public void setOrderInserts(Boolean orderInserts)
+	{
+		this.orderInserts = orderInserts;
+	}
+
+	/**
+	 * Method getOrderUpdates returns the orderUpdates of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Orders updates by entity so they can be batched
+	 *
+	 * @return the orderUpdates (type Boolean) of this HibernateEntityManagerProperties object.
+	 */
+	public Boolean getOrderUpdates()
+	{
+		return orderUpdates;
+	}
+
+	/**
+	 * Method setOrderUpdates sets the orderUpdates of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Orders updates by entity so they can be batched
+	 *
+	 * @param orderUpdates
+	 * 		the orderUpdates of this HibernateEntityManagerProperties object.
+	 */
+	public void setOrderUpdates(Boolean orderUpdates)
+	{
+		this.orderUpdates = orderUpdates;
+	}
+
+	/**
+	 * Method getBatchVersionedData returns the batchVersionedData of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Batches updates of versioned entities
+	 *
+	 * @return the batchVersionedData (type Boolean) of this HibernateEntityManagerProperties object.
+	 */
+	public Boolean getBatchVersionedData()
+	{
+		return batchVersionedData;
+	}
+
+	/**
+	 * Method setBatchVersionedData sets the batchVersionedData of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Batches updates of versioned entities
+	 *
+	 * @param batchVersionedData
+	 * 		the batchVersionedData of this HibernateEntityManagerProperties object.
+	 */
+	public void setBatchVersionedData(Boolean batchVersionedData)
+	{
+		this.batchVersionedData = batchVersionedData;
+	}
+
+	/**
+	 * Method getConnectionHandlingMode returns the connectionHandlingMode of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * When the physical connection is acquired and released
+	 *
+	 * @return the connectionHandlingMode (type PhysicalConnectionHandlingMode) of this HibernateEntityManagerProperties object.
+	 */
+	public PhysicalConnectionHandlingMode getConnectionHandlingMode()
+	{
+		return connectionHandlingMode;
+	}
+
+	/**
+	 * Method setConnectionHandlingMode sets the connectionHandlingMode of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * When the physical connection is acquired and released
+	 *
+	 * @param connectionHandlingMode
+	 * 		the connectionHandlingMode of this HibernateEntityManagerProperties object.
+	 */
+	public void setConnectionHandlingMode(PhysicalConnectionHandlingMode connectionHandlingMode)
+	{
+		this.connectionHandlingMode = connectionHandlingMode;
+	}
+
+	/**
+	 * Method getProviderDisablesAutocommit returns the providerDisablesAutocommit of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * If the pool hands out connections with auto commit disabled
+	 *
+	 * @return the providerDisablesAutocommit (type Boolean) of this HibernateEntityManagerProperties object.
+	 */
+	public Boolean getProviderDisablesAutocommit()
+	{
+		return providerDisablesAutocommit;
+	}
+
+	/**
+	 * Method setProviderDisablesAutocommit sets the providerDisablesAutocommit of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * If the pool hands out connections with auto commit disabled
+	 *
+	 * @param providerDisablesAutocommit
+	 * 		the providerDisablesAutocommit of this HibernateEntityManagerProperties object.
+	 */
+	public void setProviderDisablesAutocommit(Boolean providerDisablesAutocommit)
+	{
+		this.providerDisablesAutocommit = providerDisablesAutocommit;
+	}
+
+	/**
+	 * Method getLazyEntityManager returns the lazyEntityManager of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Creates the entity manager of a resource local unit of work on first use
+	 *
+	 * @return the lazyEntityManager (type Boolean) of this HibernateEntityManagerProperties object.
+	 */
+	public Boolean getLazyEntityManager()
+	{
+		return lazyEntityManager;
+	}
+
+	/**
+	 * Method setLazyEntityManager sets the lazyEntityManager of this HibernateEntityManagerProperties object.
+	 * <p>
+	 * Creates the entity manager of a resource local unit of work on first use
+	 *
+	 * @param lazyEntityManager
+	 * 		the lazyEntityManager of this HibernateEntityManagerProperties object.
+	 */
+	public void setLazyEntityManager(Boolean lazyEntityManager)
+	{
+		this.lazyEntityManager = lazyEntityManager;
+	}
 }
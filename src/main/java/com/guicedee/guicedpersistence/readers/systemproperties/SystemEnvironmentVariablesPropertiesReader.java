@@ -1,53 +1,128 @@
 package com.guicedee.guicedpersistence.readers.systemproperties;
 
-import com.google.common.base.Strings;
 import com.guicedee.guicedpersistence.services.IPropertiesEntityManagerReader;
 import com.guicedee.logger.LogFactory;
 import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
- * A default connection string builder for H2 Databases
+ * Resolves ${name} and ${name:default} placeholders in property values from system properties, then environment variables, then the
+ * default
+ * <p>
+ * Each distinct value is compiled into a template once and cached across persistence units. Unresolved placeholders are left as is.
  */
 public class SystemEnvironmentVariablesPropertiesReader
         implements IPropertiesEntityManagerReader {
-    private static final String pat = "\\$\\{([a-zA-Z_\\-\\.]*)\\}";
-    private static final Pattern pattern = Pattern.compile(pat);
-
     private static final Logger log = LogFactory.getLog(SystemEnvironmentVariablesPropertiesReader.class);
 
+    /**
+     * The compiled templates by property value
+     */
+    private static final Map<String, Template> templates = new ConcurrentHashMap<>();
+
     @Override
     public Map<String, String> processProperties(ParsedPersistenceXmlDescriptor persistenceUnit, Properties incomingProperties) {
         for (String prop : incomingProperties.stringPropertyNames()) {
             String value = incomingProperties.getProperty(prop);
-            String valueNew = incomingProperties.getProperty(prop);
-            Matcher matcher = pattern.matcher(value);
-
-            for (MatchResult a : matcher.results().collect(Collectors.toList())) {
-                String matchedText = a.group(0);
-                matchedText = matchedText.replace("$", "\\$");
-                matchedText = matchedText.replace("{", "\\{");
-                matchedText = matchedText.replace("}", "\\}");
-                String searchProperty = a.group(1);
-                String systemProperty = System.getProperty(searchProperty, matchedText);
-                if (searchProperty.equals(matchedText)) {
-                    log.warning("Missing System Property - " + matchedText);
-                } else {
-                    valueNew = valueNew.replaceAll(matchedText, systemProperty);
-                }
+            if (value == null || !value.contains("${")) {
+                continue;
             }
-            if (!Strings.isNullOrEmpty(valueNew)) {
+            String valueNew = templates.computeIfAbsent(value, Template::compile)
+                    .resolve();
+            if (!valueNew.isEmpty()) {
                 incomingProperties.put(prop, valueNew);
             }
         }
         return new HashMap<>();
     }
+
+    /**
+     * Resolves every placeholder in a value
+     *
+     * @param value The value to resolve
+     * @return The resolved value
+     */
+    public static String resolve(String value) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+        return templates.computeIfAbsent(value, Template::compile)
+                .resolve();
+    }
+
+    /**
+     * A property value split into literal text and placeholders in a single pass
+     */
+    private static final class Template {
+        /**
+         * Literal text as strings, placeholders as string arrays of name, default and the original text
+         */
+        private final Object[] parts;
+
+        private Template(Object[] parts) {
+            this.parts = parts;
+        }
+
+        private static Template compile(String value) {
+            List<Object> parts = new ArrayList<>();
+            int length = value.length();
+            int literalStart = 0;
+            int i = 0;
+            while (i < length - 1) {
+                if (value.charAt(i) == '$' && value.charAt(i + 1) == '{') {
+                    int end = value.indexOf('}', i + 2);
+                    if (end < 0) {
+                        break;
+                    }
+                    if (i > literalStart) {
+                        parts.add(value.substring(literalStart, i));
+                    }
+                    String body = value.substring(i + 2, end);
+                    int colon = body.indexOf(':');
+                    String name = colon < 0 ? body : body.substring(0, colon);
+                    String defaultValue = colon < 0 ? null : body.substring(colon + 1);
+                    parts.add(new String[]{name, defaultValue, value.substring(i, end + 1)});
+                    i = end + 1;
+                    literalStart = i;
+                } else {
+                    i++;
+                }
+            }
+            if (literalStart < length) {
+                parts.add(value.substring(literalStart));
+            }
+            return new Template(parts.toArray());
+        }
+
+        private String resolve() {
+            StringBuilder sb = new StringBuilder();
+            for (Object part : parts) {
+                if (part instanceof String) {
+                    sb.append((String) part);
+                    continue;
+                }
+                String[] placeholder = (String[]) part;
+                String resolved = System.getProperty(placeholder[0]);
+                if (resolved == null) {
+                    resolved = System.getenv(placeholder[0]);
+                }
+                if (resolved == null) {
+                    resolved = placeholder[1];
+                }
+                if (resolved == null) {
+                    log.warning("Missing System Property - " + placeholder[2]);
+                    resolved = placeholder[2];
+                }
+                sb.append(resolved);
+            }
+            return sb.toString();
+        }
+    }
 }
@@ -12,6 +12,9 @@ import com.guicedee.guicedpersistence.injectors.GuicedPersistenceTxnInterceptor;
 import com.guicedee.guicedpersistence.services.IPropertiesConnectionInfoReader;
 import com.guicedee.guicedpersistence.services.IPropertiesEntityManagerReader;
 import com.guicedee.guicedpersistence.services.ITransactionHandler;
+import com.guicedee.guicedpersistence.services.ITransactionMetricsListener;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.guicedpersistence.services.TransactionMetricsPublisher;
 
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -28,6 +31,9 @@ public class PersistenceServiceLoadersBinder
     @SuppressWarnings("Convert2Diamond")
     public static final Key<Set<ITransactionHandler>> ITransactionHandlerReader = Key.get(new TypeLiteral<Set<ITransactionHandler>>() {
     });
+    @SuppressWarnings("Convert2Diamond")
+    public static final Key<Set<ITransactionMetricsListener>> ITransactionMetricsListenerReader = Key.get(new TypeLiteral<Set<ITransactionMetricsListener>>() {
+    });
 
     @Override
     protected void configure() {
@@ -40,6 +46,9 @@ public class PersistenceServiceLoadersBinder
         Set<ITransactionHandler> transactionHandlerReader = GuiceContext.instance()
                 .getLoader(ITransactionHandler.class, true, ServiceLoader.load(
                         ITransactionHandler.class));
+        Set<ITransactionMetricsListener> transactionMetricsListeners = GuiceContext.instance()
+                .getLoader(ITransactionMetricsListener.class, true, ServiceLoader.load(
+                        ITransactionMetricsListener.class));
 
         bind(PersistenceServiceLoadersBinder.PropertiesEntityManagerReader)
                 .toInstance(propertiesEntityManager);
@@ -50,9 +59,20 @@ public class PersistenceServiceLoadersBinder
         bind(PersistenceServiceLoadersBinder.ITransactionHandlerReader)
                 .toInstance(transactionHandlerReader);
 
-        bindInterceptor(Matchers.any(), Matchers.annotatedWith(Transactional.class), new GuicedPersistenceTxnInterceptor());
-        bindInterceptor(Matchers.any(), Matchers.annotatedWith(com.google.inject.persist.Transactional.class), new CustomJpaLocalTxnInterceptor());
-        bindInterceptor(Matchers.any(), Matchers.annotatedWith(jakarta.transaction.Transactional.class), new CustomJpaLocalTxnInterceptor());
+        TransactionHandlerDispatchTable dispatchTable = new TransactionHandlerDispatchTable(transactionHandlerReader);
+        bind(TransactionHandlerDispatchTable.class)
+                .toInstance(dispatchTable);
+
+        bind(PersistenceServiceLoadersBinder.ITransactionMetricsListenerReader)
+                .toInstance(transactionMetricsListeners);
+
+        TransactionMetricsPublisher metricsPublisher = new TransactionMetricsPublisher(transactionMetricsListeners);
+        bind(TransactionMetricsPublisher.class)
+                .toInstance(metricsPublisher);
+
+        bindInterceptor(Matchers.any(), Matchers.annotatedWith(Transactional.class), new GuicedPersistenceTxnInterceptor(dispatchTable, metricsPublisher));
+        bindInterceptor(Matchers.any(), Matchers.annotatedWith(com.google.inject.persist.Transactional.class), new CustomJpaLocalTxnInterceptor(dispatchTable, metricsPublisher));
+        bindInterceptor(Matchers.any(), Matchers.annotatedWith(jakarta.transaction.Transactional.class), new CustomJpaLocalTxnInterceptor(dispatchTable, metricsPublisher));
     }
     
 }
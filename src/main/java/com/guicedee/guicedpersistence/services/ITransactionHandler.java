@@ -24,6 +24,21 @@ public interface ITransactionHandler<J extends ITransactionHandler<J>>
 	 */
 	void beginTransacation(boolean createNew, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit);
 
+	/**
+	 * What to do when beginning a transaction that may be read only
+	 *
+	 * @param createNew
+	 * 		If create new was specified
+	 * @param readOnly
+	 * 		If the transaction will only read
+	 * @param entityManager
+	 * 		The entity manager associated
+	 */
+	default void beginTransacation(boolean createNew, boolean readOnly, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		beginTransacation(createNew, entityManager, persistenceUnit);
+	}
+
 	/**
 	 * What to do when committing a transaction, always called
 	 *
@@ -34,12 +49,27 @@ public interface ITransactionHandler<J extends ITransactionHandler<J>>
 	 */
 	void commitTransacation(boolean createNew, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit);
 
+	/**
+	 * What to do when committing a transaction that may be read only
+	 *
+	 * @param createNew
+	 * 		If the transaction already exists
+	 * @param readOnly
+	 * 		If the transaction was begun read only
+	 * @param entityManager
+	 * 		The entity manager associated
+	 */
+	default void commitTransacation(boolean createNew, boolean readOnly, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		commitTransacation(createNew, entityManager, persistenceUnit);
+	}
+
 
 	/**
 	 * What to do when committing a transaction, always called
 	 *
 	 * @param timeout
-	 * 		The timeout to apply default 30
+	 * 		The timeout to apply in seconds, -1 when the method did not set one
 	 * @param entityManager
 	 * 		The entity manager ParsedPersistenceXmlDescriptor
 	 */
@@ -55,6 +85,21 @@ public interface ITransactionHandler<J extends ITransactionHandler<J>>
 	 */
 	void rollbackTransacation(boolean createNew, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit);
 
+	/**
+	 * What to do when rolling back a transaction that may be read only
+	 *
+	 * @param createNew
+	 * 		If the transaction already exists
+	 * @param readOnly
+	 * 		If the transaction was begun read only
+	 * @param entityManager
+	 * 		The entity manager associated
+	 */
+	default void rollbackTransacation(boolean createNew, boolean readOnly, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		rollbackTransacation(createNew, entityManager, persistenceUnit);
+	}
+
 	/**
 	 * Returns the value denoting if the transaction exists or not
 	 *
@@ -65,6 +110,34 @@ public interface ITransactionHandler<J extends ITransactionHandler<J>>
 	 */
 	boolean transactionExists(EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit);
 
+	/**
+	 * Detaches the running transaction from the current thread so a new one can be started
+	 * <p>
+	 * Transactions bound to the entity manager need no suspension, as the entity manager itself is suspended
+	 *
+	 * @param entityManager
+	 * 		The entity manager of the running transaction
+	 *
+	 * @return The suspended transaction to pass to resume, or null if nothing was suspended
+	 */
+	default Object suspendTransaction(EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		return null;
+	}
+
+	/**
+	 * Re-attaches a transaction previously returned from suspendTransaction to the current thread
+	 *
+	 * @param suspended
+	 * 		The suspended transaction
+	 * @param entityManager
+	 * 		The entity manager of the resumed transaction
+	 */
+	default void resumeTransaction(Object suspended, EntityManager entityManager, ParsedPersistenceXmlDescriptor persistenceUnit)
+	{
+		//Nothing to resume
+	}
+
 	/**
 	 * If this handler is active or not
 	 *
@@ -0,0 +1,43 @@
+package com.guicedee.guicedpersistence.services;
+
+import com.guicedee.guicedinjection.interfaces.IDefaultService;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * A service that receives the timings of every transaction begun by the transaction interceptors
+ * <p>
+ * Called on the thread that completed the transaction, implementations must be cheap and thread safe
+ */
+public interface ITransactionMetricsListener<J extends ITransactionMetricsListener<J>>
+		extends IDefaultService<J>
+{
+	/**
+	 * If this listener is recording, when no listener is recording no timings are taken
+	 *
+	 * @return If the listener should receive transactions
+	 */
+	default boolean enabled()
+	{
+		return true;
+	}
+
+	/**
+	 * Receives a completed transaction
+	 *
+	 * @param method
+	 * 		The transactional method
+	 * @param qualifier
+	 * 		The entity manager annotation of the transaction
+	 * @param outcome
+	 * 		How the transaction completed
+	 * @param beginNanos
+	 * 		The time taken to begin the transaction
+	 * @param bodyNanos
+	 * 		The time taken by the method body
+	 * @param completionNanos
+	 * 		The time taken to commit or roll back
+	 */
+	void onTransaction(Method method, Class<? extends Annotation> qualifier, TransactionOutcome outcome, long beginNanos, long bodyNanos, long completionNanos);
+}
@@ -5,14 +5,23 @@ import com.google.inject.Key;
 import com.google.inject.Module;
 import com.guicedee.guicedinjection.interfaces.IGuiceModule;
 import com.guicedee.guicedpersistence.db.ConnectionBaseInfo;
+import com.guicedee.guicedpersistence.implementations.PersistenceStartupReport;
 import com.guicedee.logger.LogFactory;
 
 import javax.sql.DataSource;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +37,10 @@ public class PersistenceServicesModule
 	
 	private static final Map<String, DataSource> jtaDataSources = new LinkedHashMap<>();
 	private static final Map<String, Set<String>> jtaPersistenceUnits = new LinkedHashMap<>();
+	private static final Map<String, CompletableFuture<Void>> dataSourceReadiness = new ConcurrentHashMap<>();
+	
+	private static int dataSourceParallelism = Math.max(4, Runtime.getRuntime()
+	                                                              .availableProcessors());
 	
 	@Override
 	protected void configure()
@@ -35,6 +48,8 @@ public class PersistenceServicesModule
 		log.config("Building Persistence Services Module");
 		modules.forEach((key, value) -> install(value));
 		
+		ExecutorService executor = null;
+		List<CompletableFuture<Void>> fills = new ArrayList<>();
 		for (Map.Entry<Class<? extends Annotation>, ConnectionBaseInfo> entry : jtaConnectionBaseInfo.entrySet())
 		{
 			Class<? extends Annotation> k = entry.getKey();
@@ -45,19 +60,19 @@ public class PersistenceServicesModule
 				if (!jtaDataSources.containsKey(v.getJndiName()))
 				{
 					log.config("Starting datasource - " + v.getJndiName());
-					ds = v.toPooledDatasource();
+					long start = System.nanoTime();
+					ds = v.createPooledDatasource();
+					PersistenceStartupReport.record(v.getPersistenceUnitName(), PersistenceStartupReport.Phase.DATASOURCE, System.nanoTime() - start);
 					if (ds != null)
 					{
 						jtaDataSources.put(v.getJndiName(), ds);
 						bind(Key.get(DataSource.class, k)).toInstance(ds);
+						if (executor == null)
+						{
+							executor = createDataSourceExecutor();
+						}
+						fills.add(fillDataSource(v, ds, executor));
 					}
-					if (!jtaPersistenceUnits.containsKey(v.getJndiName()))
-					{
-						jtaPersistenceUnits.put(v.getJndiName(), new LinkedHashSet<>());
-					}
-					jtaPersistenceUnits.get(v.getJndiName())
-					                   .add(jtaConnectionBaseInfo.get(k)
-					                                             .getPersistenceUnitName());
 				}
 				else
 				{
@@ -67,12 +82,111 @@ public class PersistenceServicesModule
 						bind(Key.get(DataSource.class, k)).toInstance(ds);
 					}
 				}
+				addJtaPersistenceUnits(v.getJndiName(), v.getPersistenceUnitName());
 			}
 			catch (Exception t)
 			{
 				log.log(Level.SEVERE, "Cannot start datasource!", t);
 			}
 		}
+		if (executor != null)
+		{
+			ExecutorService owned = executor;
+			CompletableFuture.allOf(fills.toArray(new CompletableFuture<?>[0]))
+			                 .whenComplete((v, t) -> owned.shutdown());
+		}
+	}
+	
+	/**
+	 * Fills the pool of a datasource in the background, the future is registered under the JNDI name so entity manager factories
+	 * can wait for it
+	 */
+	private CompletableFuture<Void> fillDataSource(ConnectionBaseInfo connectionBaseInfo, DataSource ds, Executor executor)
+	{
+		CompletableFuture<Void> fill = CompletableFuture.runAsync(() -> {
+			long start = System.nanoTime();
+			try
+			{
+				connectionBaseInfo.initialiseDatasource(ds);
+				log.config("Datasource ready - " + connectionBaseInfo.getJndiName());
+			}
+			catch (Throwable t)
+			{
+				log.log(Level.SEVERE, "Cannot start datasource " + connectionBaseInfo.getJndiName(), t);
+			}
+			finally
+			{
+				PersistenceStartupReport.record(connectionBaseInfo.getPersistenceUnitName(), PersistenceStartupReport.Phase.DATASOURCE,
+				                                System.nanoTime() - start);
+			}
+		}, executor);
+		dataSourceReadiness.put(connectionBaseInfo.getJndiName(), fill);
+		return fill;
+	}
+	
+	private static ExecutorService createDataSourceExecutor()
+	{
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(dataSourceParallelism, runnable -> {
+			Thread thread = new Thread(runnable, "persistence-datasource-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Waits until the pool of the datasource used by the persistence unit is filled, returns at once for units without a pooled
+	 * datasource
+	 *
+	 * @param persistenceUnitName
+	 * 		The persistence unit name
+	 */
+	public static void awaitDataSource(String persistenceUnitName)
+	{
+		for (Map.Entry<String, Set<String>> entry : jtaPersistenceUnits.entrySet())
+		{
+			if (entry.getValue()
+			         .contains(persistenceUnitName))
+			{
+				CompletableFuture<Void> fill = dataSourceReadiness.get(entry.getKey());
+				if (fill != null)
+				{
+					fill.join();
+				}
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * The pool fills by JNDI name, each completes once the pool of the datasource has been initialised or has failed to
+	 *
+	 * @return The readiness of each pooled datasource
+	 */
+	public static Map<String, CompletableFuture<Void>> getDataSourceReadiness()
+	{
+		return dataSourceReadiness;
+	}
+	
+	/**
+	 * The maximum number of pools filled at the same time
+	 *
+	 * @return default the number of processors, at least 4
+	 */
+	public static int getDataSourceParallelism()
+	{
+		return dataSourceParallelism;
+	}
+	
+	/**
+	 * The maximum number of pools filled at the same time
+	 *
+	 * @param dataSourceParallelism
+	 * 		default the number of processors, at least 4
+	 */
+	public static void setDataSourceParallelism(int dataSourceParallelism)
+	{
+		PersistenceServicesModule.dataSourceParallelism = Math.max(1, dataSourceParallelism);
 	}
 	
 	public static Map<Class<? extends Annotation>, Module> getModules()
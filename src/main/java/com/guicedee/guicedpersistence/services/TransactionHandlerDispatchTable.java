@@ -0,0 +1,128 @@
+package com.guicedee.guicedpersistence.services;
+
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A per persistence unit lookup of the transaction handlers that apply to it
+ * <p>
+ * Entries are calculated once per unit and are only rebuilt when a handler flips its active or enabled state through
+ * {@link #invalidate()}
+ */
+@SuppressWarnings("rawtypes")
+public class TransactionHandlerDispatchTable
+{
+	/**
+	 * The current version of the handler states
+	 */
+	private static final AtomicInteger version = new AtomicInteger();
+	/**
+	 * An empty handler array
+	 */
+	private static final ITransactionHandler[] NONE = new ITransactionHandler[0];
+
+	/**
+	 * All the loaded handlers
+	 */
+	private final ITransactionHandler[] handlers;
+	/**
+	 * The calculated handlers for each unit
+	 */
+	private final Map<ParsedPersistenceXmlDescriptor, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new dispatch table for the given handlers
+	 *
+	 * @param handlers
+	 * 		The service loaded transaction handlers
+	 */
+	public TransactionHandlerDispatchTable(Collection<? extends ITransactionHandler> handlers)
+	{
+		this.handlers = handlers.toArray(NONE);
+	}
+
+	/**
+	 * Marks all calculated entries as stale, must be called whenever a handler changes its active or enabled state
+	 */
+	public static void invalidate()
+	{
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Returns the handlers where {@link ITransactionHandler#active(ParsedPersistenceXmlDescriptor)} is true for the unit
+	 *
+	 * @param unit
+	 * 		The persistence unit
+	 *
+	 * @return The active handlers, never null
+	 */
+	public ITransactionHandler[] getActiveHandlers(ParsedPersistenceXmlDescriptor unit)
+	{
+		return entry(unit).active;
+	}
+
+	/**
+	 * Returns the first handler where {@link ITransactionHandler#enabled(ParsedPersistenceXmlDescriptor)} is true for the unit
+	 *
+	 * @param unit
+	 * 		The persistence unit
+	 *
+	 * @return The enabled handler or null if none are enabled
+	 */
+	public ITransactionHandler getEnabledHandler(ParsedPersistenceXmlDescriptor unit)
+	{
+		return entry(unit).enabled;
+	}
+
+	private Entry entry(ParsedPersistenceXmlDescriptor unit)
+	{
+		int currentVersion = version.get();
+		Entry entry = entries.get(unit);
+		if (entry == null || entry.version != currentVersion)
+		{
+			entry = build(unit, currentVersion);
+			entries.put(unit, entry);
+		}
+		return entry;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Entry build(ParsedPersistenceXmlDescriptor unit, int forVersion)
+	{
+		List<ITransactionHandler> active = new ArrayList<>();
+		ITransactionHandler enabled = null;
+		for (ITransactionHandler handler : handlers)
+		{
+			if (handler.active(unit))
+			{
+				active.add(handler);
+			}
+			if (enabled == null && handler.enabled(unit))
+			{
+				enabled = handler;
+			}
+		}
+		return new Entry(forVersion, active.toArray(NONE), enabled);
+	}
+
+	private static final class Entry
+	{
+		private final int version;
+		private final ITransactionHandler[] active;
+		private final ITransactionHandler enabled;
+
+		private Entry(int version, ITransactionHandler[] active, ITransactionHandler enabled)
+		{
+			this.version = version;
+			this.active = active;
+			this.enabled = enabled;
+		}
+	}
+}
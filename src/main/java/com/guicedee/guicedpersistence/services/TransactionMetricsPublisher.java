@@ -0,0 +1,97 @@
+package com.guicedee.guicedpersistence.services;
+
+import com.guicedee.logger.LogFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands completed transaction timings to the loaded {@link ITransactionMetricsListener} services
+ */
+@SuppressWarnings("rawtypes")
+public class TransactionMetricsPublisher
+{
+	/**
+	 * Field log
+	 */
+	private static final Logger log = LogFactory.getLog("TransactionMetricsPublisher");
+	/**
+	 * An empty listener array
+	 */
+	private static final ITransactionMetricsListener[] NONE = new ITransactionMetricsListener[0];
+
+	/**
+	 * All the loaded listeners
+	 */
+	private final ITransactionMetricsListener[] listeners;
+
+	/**
+	 * Creates a new publisher for the given listeners
+	 *
+	 * @param listeners
+	 * 		The service loaded metrics listeners
+	 */
+	public TransactionMetricsPublisher(Collection<? extends ITransactionMetricsListener> listeners)
+	{
+		this.listeners = listeners.toArray(NONE);
+	}
+
+	/**
+	 * If any listener is recording, timings are only taken when this is true
+	 *
+	 * @return If any listener is enabled
+	 */
+	public boolean isRecording()
+	{
+		for (ITransactionMetricsListener listener : listeners)
+		{
+			if (listener.enabled())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Publishes a completed transaction to every enabled listener
+	 *
+	 * @param method
+	 * 		The transactional method
+	 * @param qualifier
+	 * 		The entity manager annotation
+	 * @param outcome
+	 * 		How the transaction completed
+	 * @param started
+	 * 		System.nanoTime() before the transaction began
+	 * @param begun
+	 * 		System.nanoTime() once the transaction had begun
+	 * @param bodyEnded
+	 * 		System.nanoTime() once the method body returned
+	 * @param ended
+	 * 		System.nanoTime() once the transaction completed
+	 */
+	@SuppressWarnings("unchecked")
+	public void publish(Method method, Class<? extends Annotation> qualifier, TransactionOutcome outcome, long started, long begun, long bodyEnded, long ended)
+	{
+		for (ITransactionMetricsListener listener : listeners)
+		{
+			if (!listener.enabled())
+			{
+				continue;
+			}
+			try
+			{
+				listener.onTransaction(method, qualifier, outcome, begun - started, bodyEnded - begun, ended - bodyEnded);
+			}
+			catch (RuntimeException e)
+			{
+				log.log(Level.FINE, "Transaction metrics listener failed : " + listener.getClass()
+				                                                                          .getName(), e);
+			}
+		}
+	}
+}
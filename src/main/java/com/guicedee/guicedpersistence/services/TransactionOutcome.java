@@ -0,0 +1,20 @@
+package com.guicedee.guicedpersistence.services;
+
+/**
+ * How a transaction begun by an interceptor completed
+ */
+public enum TransactionOutcome
+{
+	/**
+	 * The transaction was committed, including when the method threw an exception that does not roll back
+	 */
+	COMMITTED,
+	/**
+	 * The transaction was rolled back
+	 */
+	ROLLED_BACK,
+	/**
+	 * Completing the transaction failed
+	 */
+	FAILED
+}
@@ -0,0 +1,40 @@
+package com.guicedee.guicedinjection.db;
+
+import com.guicedee.guicedpersistence.db.ConnectionBaseInfo;
+import com.guicedee.guicedpersistence.db.DatabaseModule;
+import com.guicedee.guicedpersistence.jpa.JPAConnectionBaseInfo;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+
+import java.lang.annotation.Annotation;
+import java.util.Properties;
+
+/**
+ * Binds the in memory guiceinjectionh2test unit with {@link TestEntityManager}
+ */
+public class TestDBPrivateModule
+		extends DatabaseModule<TestDBPrivateModule>
+{
+	@Override
+	protected String getPersistenceUnitName()
+	{
+		return "guiceinjectionh2test";
+	}
+
+	@Override
+	protected ConnectionBaseInfo getConnectionBaseInfo(ParsedPersistenceXmlDescriptor unit, Properties filteredProperties)
+	{
+		return new JPAConnectionBaseInfo();
+	}
+
+	@Override
+	protected String getJndiMapping()
+	{
+		return "jdbc/guiceinjectionh2test";
+	}
+
+	@Override
+	protected Class<? extends Annotation> getBindingAnnotation()
+	{
+		return TestEntityManager.class;
+	}
+}
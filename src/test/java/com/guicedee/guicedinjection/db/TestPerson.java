@@ -0,0 +1,41 @@
+package com.guicedee.guicedinjection.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * A minimal entity of the guiceinjectionh2test unit
+ */
+@Entity
+public class TestPerson
+{
+	@Id
+	private Long id;
+	private String name;
+
+	public TestPerson()
+	{
+		//No config required
+	}
+
+	public TestPerson(Long id, String name)
+	{
+		this.id = id;
+		this.name = name;
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+}
@@ -0,0 +1,73 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CustomJpaPersistServiceTest
+{
+	private static final int WARM_UP_ROUNDS = 20;
+	private static final int MEASURED_ROUNDS = 5;
+	private static final int CALLS = 100_000;
+
+	@Test
+	void getDoesNotAllocateInsideAUnitOfWork()
+	{
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported(), "Thread allocation accounting is not supported");
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		CustomJpaPersistService service = new CustomJpaPersistService("guiceinjectionh2test", new HashMap<>(), null);
+		service.start();
+		try
+		{
+			service.begin();
+			try
+			{
+				for (int i = 0; i < WARM_UP_ROUNDS; i++)
+				{
+					callGet(service);
+				}
+
+				long threadId = Thread.currentThread()
+				                      .getId();
+				long start = threads.getThreadAllocatedBytes(threadId);
+				long measurementCost = threads.getThreadAllocatedBytes(threadId) - start;
+
+				//A real allocation shows in every round, the runtime itself may allocate in the first rounds
+				long allocated = Long.MAX_VALUE;
+				for (int i = 0; i < MEASURED_ROUNDS; i++)
+				{
+					start = threads.getThreadAllocatedBytes(threadId);
+					callGet(service);
+					allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - start);
+				}
+
+				assertEquals(measurementCost, allocated, "get() allocated inside a unit of work");
+			}
+			finally
+			{
+				service.end();
+			}
+		}
+		finally
+		{
+			service.stop();
+		}
+	}
+
+	private static int callGet(CustomJpaPersistService service)
+	{
+		int sink = 0;
+		for (int i = 0; i < CALLS; i++)
+		{
+			sink ^= System.identityHashCode(service.get());
+		}
+		return sink;
+	}
+}
@@ -0,0 +1,262 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import com.guicedee.guicedinjection.db.TestEntityManager;
+import com.guicedee.guicedinjection.db.TestPerson;
+import com.guicedee.guicedpersistence.db.annotations.Propagation;
+import com.guicedee.guicedpersistence.db.annotations.Transactional;
+import com.guicedee.guicedpersistence.jpa.implementations.JPAAutomatedTransactionHandler;
+import com.guicedee.guicedpersistence.services.TransactionHandlerDispatchTable;
+import com.guicedee.guicedpersistence.services.TransactionMetricsPublisher;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.spi.PersistenceUnitTransactionType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GuicedPersistenceTxnInterceptorTest
+{
+	private CustomJpaPersistService persistService;
+	private ParsedPersistenceXmlDescriptor unit;
+	private GuicedPersistenceTxnInterceptor interceptor;
+
+	@BeforeEach
+	void setUp()
+	{
+		Map<String, String> properties = new HashMap<>();
+		properties.put("hibernate.connection.url", "jdbc:h2:mem:interceptortest;DB_CLOSE_DELAY=-1");
+		persistService = new CustomJpaPersistService("guiceinjectionh2test", properties, TestEntityManager.class);
+		persistService.start();
+		unit = new ParsedPersistenceXmlDescriptor(null);
+		unit.setName("guiceinjectionh2test");
+		unit.setTransactionType(PersistenceUnitTransactionType.RESOURCE_LOCAL);
+		interceptor = new GuicedPersistenceTxnInterceptor(new TransactionHandlerDispatchTable(Collections.singletonList(new JPAAutomatedTransactionHandler())),
+		                                                  new TransactionMetricsPublisher(Collections.emptyList()));
+		execute("create table attempts (name varchar(20))");
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		execute("drop table attempts");
+		persistService.stop();
+	}
+
+	@Test
+	void retriedAttemptIsRolledBackWhenTheRulesWouldCommit() throws Throwable
+	{
+		Work work = new Work();
+
+		invoke(work, "busyOnce");
+
+		assertEquals(2, work.attempts);
+		assertEquals(Collections.singletonList("attempt2"), names());
+	}
+
+	@Test
+	void exhaustedRetriesCommitNothing() throws Throwable
+	{
+		Work work = new Work();
+
+		assertThrows(Busy.class, () -> invoke(work, "alwaysBusy"));
+
+		assertEquals(3, work.attempts);
+		assertEquals(Collections.emptyList(), names());
+	}
+
+	@Test
+	void nestedRollbackDetachesPersistedAndRefreshesChangedEntities() throws Throwable
+	{
+		Work work = new Work();
+
+		invoke(work, "outer");
+
+		assertNull(work.foundAfterNested);
+		assertEquals("before", work.nameAfterNested);
+		EntityManager em = persistService.getEmFactory()
+		                                 .createEntityManager();
+		try
+		{
+			assertNull(em.find(TestPerson.class, 200L));
+			assertEquals("before", em.find(TestPerson.class, 1L)
+			                         .getName());
+		}
+		finally
+		{
+			em.close();
+		}
+	}
+
+	private Object invoke(Work work, String methodName) throws Throwable
+	{
+		Method method = Work.class.getMethod(methodName);
+		TransactionPlan plan = new TransactionPlan(method, method.getAnnotation(Transactional.class), persistService, persistService, unit);
+		return interceptor.invoke(new WorkInvocation(work, method), plan);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> names()
+	{
+		EntityManager em = persistService.getEmFactory()
+		                                 .createEntityManager();
+		try
+		{
+			return em.createNativeQuery("select name from attempts order by name")
+			         .getResultList();
+		}
+		finally
+		{
+			em.close();
+		}
+	}
+
+	private void execute(String sql)
+	{
+		EntityManager em = persistService.getEmFactory()
+		                                 .createEntityManager();
+		try
+		{
+			em.getTransaction()
+			  .begin();
+			em.createNativeQuery(sql)
+			  .executeUpdate();
+			em.getTransaction()
+			  .commit();
+		}
+		finally
+		{
+			em.close();
+		}
+	}
+
+	/**
+	 * A checked failure that carries a serialization failure, retriable but committed by the default rollback rules
+	 */
+	static class Busy
+			extends Exception
+	{
+		Busy()
+		{
+			super(new SQLException("Serialization failure", "40001"));
+		}
+	}
+
+	public class Work
+	{
+		private int attempts;
+		private TestPerson foundAfterNested;
+		private String nameAfterNested;
+
+		@Transactional(entityManagerAnnotation = TestEntityManager.class, maxRetries = 2, retryOn = Busy.class, retryBackoff = 0)
+		public void busyOnce() throws Busy
+		{
+			attempts++;
+			insert("attempt" + attempts);
+			if (attempts == 1)
+			{
+				throw new Busy();
+			}
+		}
+
+		@Transactional(entityManagerAnnotation = TestEntityManager.class, maxRetries = 2, retryOn = Busy.class, retryBackoff = 0)
+		public void alwaysBusy() throws Busy
+		{
+			attempts++;
+			insert("attempt" + attempts);
+			throw new Busy();
+		}
+
+		@Transactional(entityManagerAnnotation = TestEntityManager.class)
+		public void outer() throws Throwable
+		{
+			EntityManager em = persistService.get();
+			em.persist(new TestPerson(1L, "before"));
+			assertThrows(IllegalStateException.class, () -> invoke(this, "nested"));
+			foundAfterNested = em.find(TestPerson.class, 200L);
+			nameAfterNested = em.find(TestPerson.class, 1L)
+			                    .getName();
+		}
+
+		@Transactional(entityManagerAnnotation = TestEntityManager.class, propagation = Propagation.NESTED)
+		public void nested()
+		{
+			EntityManager em = persistService.get();
+			em.persist(new TestPerson(200L, "nested"));
+			em.find(TestPerson.class, 1L)
+			  .setName("changed");
+			throw new IllegalStateException("Rolled back to the savepoint");
+		}
+
+		private void insert(String name)
+		{
+			persistService.get()
+			              .createNativeQuery("insert into attempts (name) values (?)")
+			              .setParameter(1, name)
+			              .executeUpdate();
+		}
+	}
+
+	private static final class WorkInvocation
+			implements MethodInvocation
+	{
+		private final Work work;
+		private final Method method;
+
+		private WorkInvocation(Work work, Method method)
+		{
+			this.work = work;
+			this.method = method;
+		}
+
+		@Override
+		public Method getMethod()
+		{
+			return method;
+		}
+
+		@Override
+		public Object[] getArguments()
+		{
+			return new Object[0];
+		}
+
+		@Override
+		public Object proceed() throws Throwable
+		{
+			try
+			{
+				return method.invoke(work);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		}
+
+		@Override
+		public Object getThis()
+		{
+			return work;
+		}
+
+		@Override
+		public AccessibleObject getStaticPart()
+		{
+			return method;
+		}
+	}
+}
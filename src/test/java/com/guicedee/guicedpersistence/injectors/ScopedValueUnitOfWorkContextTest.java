@@ -0,0 +1,94 @@
+package com.guicedee.guicedpersistence.injectors;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ScopedValueUnitOfWorkContextTest
+{
+	@Test
+	void workUnitIsOnlyBoundInsideTheScope() throws Exception
+	{
+		assumeTrue(ScopedValueUnitOfWorkContext.isAvailable(), "ScopedValue is not available");
+		ScopedValueUnitOfWorkContext context = new ScopedValueUnitOfWorkContext();
+
+		WorkUnit inScope = context.call(() -> {
+			WorkUnit unit = context.getOrCreate();
+			assertSame(unit, context.get());
+			assertTrue(unit.isScoped());
+			return unit;
+		});
+
+		assertNotNull(inScope);
+		assertNull(context.get());
+	}
+
+	@Test
+	void wrappedTaskJoinsTheWorkUnitOfItsScope() throws Exception
+	{
+		assumeTrue(ScopedValueUnitOfWorkContext.isAvailable(), "ScopedValue is not available");
+		ScopedValueUnitOfWorkContext context = new ScopedValueUnitOfWorkContext();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			context.call(() -> {
+				WorkUnit parent = context.getOrCreate();
+				assertSame(parent, executor.submit(context.wrap(context::get))
+				                           .get());
+				return null;
+			});
+			assertNull(executor.submit(context::get)
+			                   .get());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void workBegunOutsideAScopeIsReleasedWhenItEnds()
+	{
+		assumeTrue(ScopedValueUnitOfWorkContext.isAvailable(), "ScopedValue is not available");
+		ScopedValueUnitOfWorkContext context = new ScopedValueUnitOfWorkContext();
+
+		WorkUnit unit = context.getOrCreate();
+		assertFalse(unit.isScoped());
+		context.release(unit);
+
+		assertNull(context.get());
+	}
+
+	@Test
+	void scopedPropertySelectsTheCarrierAndClosesLeakedEntityManagers() throws Exception
+	{
+		assumeTrue(ScopedValueUnitOfWorkContext.isAvailable(), "ScopedValue is not available");
+		Map<String, String> properties = new HashMap<>();
+		properties.put("hibernate.connection.url", "jdbc:h2:mem:scopedcontexttest;DB_CLOSE_DELAY=-1");
+		properties.put(UnitOfWorkContext.CONTEXT_PROPERTY, "scoped");
+		CustomJpaPersistService service = new CustomJpaPersistService("guiceinjectionh2test", properties, null);
+		assertTrue(service.getContext() instanceof ScopedValueUnitOfWorkContext);
+		service.start();
+		try
+		{
+			EntityManager leaked = service.callInScope(() -> {
+				service.begin();
+				return service.get();
+			});
+
+			assertFalse(leaked.isOpen());
+			assertFalse(service.isWorking());
+		}
+		finally
+		{
+			service.stop();
+		}
+	}
+}